@@ -0,0 +1,52 @@
+package com.example.coffeeshop.config;
+
+import com.example.coffeeshop.service.DataSeeder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Opt-in mode that handles every request on its own virtual thread (spring.threads.virtual.enabled).
+ * Controllers block on MongoDB, so with Tomcat's fixed pool of platform threads the number of
+ * requests in flight is capped by server.tomcat.threads.max; virtual threads lift that cap and
+ * leave the MongoDB connection pool as the limit.
+ * Lives in src/jdk21/java and is only compiled by the jdk21 Maven profile; other builds refuse
+ * to start with the property set (see VirtualThreadsUnavailableConfig).
+ * Spring Boot 3.2 reads the same property natively, so this class can go after an upgrade.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("spring.threads.virtual.enabled")
+public class VirtualThreadConfig {
+
+    /**
+     * Runs Tomcat's request processing on virtual threads.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Replaces the pooled application executor, which also runs asynchronous MVC responses such
+     * as the streamed cafe catalogue.
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Threads for the re-import workers, which spend most of their time waiting on MongoDB.
+     */
+    @Bean(name = DataSeeder.WORKER_THREAD_FACTORY)
+    public ThreadFactory seederWorkerThreadFactory() {
+        return Thread.ofVirtual().name("seeder-worker-", 0).factory();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.coffeeshop.controller;
+
+import com.example.coffeeshop.model.Cafe;
+import com.example.coffeeshop.model.Review;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing cafe and review lists to JSON, as the controllers return them.
+ * {@code cafes} spans a listing page up to the whole Taipei catalogue; {@code reviews} spans a
+ * default review page up to {@code ReviewService.MAX_PAGE_SIZE}. The mapper is configured like
+ * Spring Boot's, and the writer is resolved once as the catalogue endpoint does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private static final String[] TAGS = {
+            "work_friendly", "quiet", "dessert", "pet_friendly", "aesthetic", "specialty_coffee", "late_night", "social"
+    };
+
+    @Param({"20", "1000", "5000"})
+    private int cafes;
+
+    @Param({"20", "100"})
+    private int reviews;
+
+    private ObjectWriter cafeListWriter;
+    private ObjectWriter reviewListWriter;
+    private List<Cafe> cafeList;
+    private List<Review> reviewList;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        cafeListWriter = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Cafe.class));
+        reviewListWriter = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Review.class));
+
+        Random random = new Random(42);
+        cafeList = new ArrayList<>(cafes);
+        for (int i = 0; i < cafes; i++) {
+            cafeList.add(cafe(i, random));
+        }
+        reviewList = new ArrayList<>(reviews);
+        for (int i = 0; i < reviews; i++) {
+            reviewList.add(review(i, random));
+        }
+    }
+
+    @Benchmark
+    public byte[] writeCafes() throws Exception {
+        return cafeListWriter.writeValueAsBytes(cafeList);
+    }
+
+    @Benchmark
+    public byte[] writeReviews() throws Exception {
+        return reviewListWriter.writeValueAsBytes(reviewList);
+    }
+
+    private static Cafe cafe(int i, Random random) {
+        Cafe cafe = new Cafe();
+        cafe.setId(String.format("65a1f0c2e4b0a1b2%08x", i));
+        cafe.setName("Cafe Lab " + i);
+        cafe.setDescription("Specialty coffee shop with single-origin pour-overs, homemade cakes and plenty of sockets.");
+        cafe.setAddress("No. " + (i % 300 + 1) + ", Sec. 1, Zhongxiao E. Rd., Zhongzheng Dist., Taipei City");
+        double latitude = 25.03 + random.nextDouble() * 0.1;
+        double longitude = 121.5 + random.nextDouble() * 0.1;
+        cafe.setLatitude(latitude);
+        cafe.setLongitude(longitude);
+        cafe.setLocation(new GeoJsonPoint(longitude, latitude));
+        for (int t = 0; t < 3; t++) {
+            String tag = TAGS[random.nextInt(TAGS.length)];
+            if (!cafe.getTags().contains(tag)) {
+                cafe.getTags().add(tag);
+            }
+        }
+        for (int rating = 1; rating <= 5; rating++) {
+            cafe.getRatingSummary().record(rating, random.nextInt(40));
+        }
+        for (int image = 0; image < 3; image++) {
+            cafe.getImageUrls().add("https://images.unsplash.com/photo-1495474472287-4d71bcdd20" + image
+                    + "?w=800&q=80");
+        }
+        cafe.setOpeningHours("Mo-Su 08:00-22:00");
+        cafe.setPhoneNumber("+886 2 2345 6789");
+        return cafe;
+    }
+
+    private static Review review(int i, Random random) {
+        Review review = new Review("65a1f0c2e4b0a1b2c3d4e5f6", "65a1f0c2e4b0a1b2c3d4e5f7",
+                "member" + i + "@example.com", 1 + random.nextInt(5),
+                "Great latte, friendly staff and a quiet corner to work in. Will come back for the cheesecake.");
+        review.setId(String.format("65a1f0c2e4b0a1b3%08x", i));
+        review.setCreatedAt(new Date(1_700_000_000_000L + i * 60_000L));
+        return review;
+    }
+}
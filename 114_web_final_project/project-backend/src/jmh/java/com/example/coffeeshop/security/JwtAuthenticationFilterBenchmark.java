@@ -0,0 +1,114 @@
+package com.example.coffeeshop.security;
+
+import com.example.coffeeshop.model.User;
+import com.example.coffeeshop.repository.UserRepository;
+import com.example.coffeeshop.service.AuthService;
+import com.example.coffeeshop.tracing.Tracer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link JwtAuthenticationFilter}: token parsing, principal lookup and
+ * building the security context. MongoDB is replaced by a stubbed {@link UserRepository},
+ * so the numbers cover the filter's own work. {@code cachedPrincipal} is the steady state;
+ * {@code uncachedPrincipal} disables the principal cache so every request reaches the repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "PleaseChangeThisSecretToASecureRandomString";
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private JwtAuthenticationFilter cachedFilter;
+    private JwtAuthenticationFilter uncachedFilter;
+    private MockHttpServletRequest authenticated;
+    private MockHttpServletRequest anonymous;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        AuthService authService = new AuthService(null, null, null, SECRET, 86_400_000L);
+        User user = new User("bench@example.com", "unused", User.Role.MEMBER);
+        user.setId("65a1f0c2e4b0a1b2c3d4e5f6");
+        // Stub-only, so the mock does not record every invocation of the benchmark loop.
+        UserRepository users = Mockito.mock(UserRepository.class, Mockito.withSettings().stubOnly());
+        Mockito.when(users.findById(user.getId())).thenReturn(Optional.of(user));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        cachedFilter = new JwtAuthenticationFilter(authService, users,
+                new PrincipalCache(10_000, Duration.ofMinutes(5), meterRegistry), meterRegistry, new Tracer());
+        uncachedFilter = new JwtAuthenticationFilter(authService, users,
+                new PrincipalCache(0, Duration.ofMinutes(5), meterRegistry), meterRegistry, new Tracer());
+
+        authenticated = new MockHttpServletRequest("GET", "/api/favorites");
+        authenticated.addHeader("Authorization", "Bearer " + token(user));
+        authenticated.setRemoteAddr("203.0.113.7");
+        anonymous = new MockHttpServletRequest("GET", "/api/cafes");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object cachedPrincipal() throws Exception {
+        return filter(cachedFilter, authenticated);
+    }
+
+    @Benchmark
+    public Object uncachedPrincipal() throws Exception {
+        return filter(uncachedFilter, authenticated);
+    }
+
+    @Benchmark
+    public Object anonymousRequest() throws Exception {
+        return filter(cachedFilter, anonymous);
+    }
+
+    private Object filter(JwtAuthenticationFilter filter, MockHttpServletRequest request) throws Exception {
+        try {
+            filter.doFilter(request, response, NO_OP_CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // Signed the way AuthService issues tokens, whose generateToken is package-private.
+    private static String token(User user) {
+        SecretKey key = new SecretKeySpec(Decoders.BASE64.decode(SECRET), SignatureAlgorithm.HS256.getJcaName());
+        return Jwts.builder()
+                .setSubject(user.getId())
+                .claim("role", user.getRole().name())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 86_400_000L))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
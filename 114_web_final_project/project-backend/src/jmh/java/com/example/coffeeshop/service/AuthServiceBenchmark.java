@@ -0,0 +1,61 @@
+package com.example.coffeeshop.service;
+
+import com.example.coffeeshop.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of JWT parsing and signing, which the authentication filter and login run per request.
+ * {@code parseTokenRebuildingParser} reproduces the former implementation that rebuilt the parser
+ * and decoded the secret on every call, as the baseline for {@code parseToken}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthServiceBenchmark {
+
+    private static final String SECRET = "PleaseChangeThisSecretToASecureRandomString";
+
+    private AuthService authService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        authService = new AuthService(null, null, null, SECRET, 86_400_000L);
+        user = new User("bench@example.com", "unused", User.Role.MEMBER);
+        user.setId("65a1f0c2e4b0a1b2c3d4e5f6");
+        token = authService.generateToken(user);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Claims parseTokenRebuildingParser() {
+        return Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return authService.parseToken(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return authService.generateToken(user);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.coffeeshop.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of deriving our tags from OpenStreetMap tags, run once per element during an import.
+ * The elements cover each rule of {@code generateTags}, including the fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataSeederBenchmark {
+
+    private static final String[] ELEMENTS = {
+            "{\"name\": \"Starbucks Xinyi\", \"amenity\": \"cafe\", \"internet_access\": \"wlan\", \"website\": \"https://www.starbucks.com.tw\"}",
+            "{\"name\": \"Cat Cafe Taipei\", \"amenity\": \"cafe\", \"cuisine\": \"coffee_shop;cake\"}",
+            "{\"name\": \"Simple Kaffa Roast Lab\", \"amenity\": \"cafe\", \"contact:instagram\": \"simplekaffa\", \"opening_hours\": \"Mo-Su 10:00-20:00\"}",
+            "{\"name\": \"Midnight Brew\", \"amenity\": \"cafe\", \"opening_hours\": \"24/7\", \"internet_access\": \"yes\"}",
+            "{\"name\": \"巷口咖啡\", \"amenity\": \"cafe\"}"
+    };
+
+    private DataSeeder seeder;
+    private JsonNode[] osmTags;
+    private String[] names;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        seeder = new DataSeeder(null, null, null, mapper, "", 1000, "initial", 1,
+                new DefaultListableBeanFactory().getBeanProvider(ThreadFactory.class));
+        osmTags = new JsonNode[ELEMENTS.length];
+        names = new String[ELEMENTS.length];
+        for (int i = 0; i < ELEMENTS.length; i++) {
+            osmTags[i] = mapper.readTree(ELEMENTS[i]);
+            names[i] = osmTags[i].get("name").asText();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(5)
+    public void generateTags(Blackhole blackhole) {
+        for (int i = 0; i < osmTags.length; i++) {
+            blackhole.consume(seeder.generateTags(osmTags[i], names[i]));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.coffeeshop.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics wiring beyond what Spring Boot configures on its own.
+ * Boot already times HTTP requests and MongoDB commands and reports the Caffeine caches;
+ * this adds timers for the service classes annotated with {@code @Timed}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    /**
+     * Records a "coffeeshop.service" timer, tagged with class, method and exception, for every
+     * public method of a {@code @Timed} service.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.coffeeshop.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Refuses to start when spring.threads.virtual.enabled is set on a build without the Java 21
+ * sources, rather than quietly running on platform threads. Build with the jdk21 Maven profile
+ * to get {@code VirtualThreadConfig}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("spring.threads.virtual.enabled")
+@ConditionalOnMissingClass("com.example.coffeeshop.config.VirtualThreadConfig")
+public class VirtualThreadsUnavailableConfig {
+
+    public VirtualThreadsUnavailableConfig() {
+        throw new IllegalStateException(
+                "spring.threads.virtual.enabled needs the Java 21 build: mvn -Pjdk21 spring-boot:run");
+    }
+}
@@ -5,11 +5,16 @@ import com.example.coffeeshop.dto.LoginRequest;
 import com.example.coffeeshop.dto.RegisterRequest;
 import com.example.coffeeshop.service.AuthService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Controller exposing authentication endpoints.  
  * Handles registration and login of users and returns JWT tokens when successful.
@@ -24,23 +29,53 @@ public class AuthController {
         this.authService = authService;
     }
 
+    // Password hashing completes on its own pool, so these handlers return futures and
+    // release the servlet thread while BCrypt runs.
+
     @PostMapping("/register")
-    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request) {
-        try {
-            authService.register(request.getEmail(), request.getPassword());
-            return ResponseEntity.status(HttpStatus.CREATED).build();
-        } catch (IllegalArgumentException ex) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
-        }
+    public CompletableFuture<ResponseEntity<?>> register(@Valid @RequestBody RegisterRequest request) {
+        return authService.register(request.getEmail(), request.getPassword())
+                .handle((user, failure) -> {
+                    if (failure == null) {
+                        return ResponseEntity.status(HttpStatus.CREATED).build();
+                    }
+                    Throwable cause = unwrap(failure);
+                    if (cause instanceof IllegalArgumentException) {
+                        return ResponseEntity.status(HttpStatus.CONFLICT).body(cause.getMessage());
+                    }
+                    return overloadedOrRethrow(cause);
+                });
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        try {
-            String token = authService.login(request.getEmail(), request.getPassword());
-            return ResponseEntity.ok(new AuthResponse(token));
-        } catch (BadCredentialsException ex) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
+        return authService.login(request.getEmail(), request.getPassword())
+                .handle((token, failure) -> {
+                    if (failure == null) {
+                        return ResponseEntity.ok(new AuthResponse(token));
+                    }
+                    Throwable cause = unwrap(failure);
+                    if (cause instanceof BadCredentialsException) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+                    }
+                    return overloadedOrRethrow(cause);
+                });
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    // The hashing pool is full: ask the client to retry shortly instead of queueing without bound.
+    private static <T> ResponseEntity<T> overloadedOrRethrow(Throwable cause) {
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
         }
+        throw new CompletionException(cause);
     }
 }
\ No newline at end of file
@@ -1,32 +1,219 @@
 package com.example.coffeeshop.controller;
 
+import com.example.coffeeshop.dto.CafeSuggestion;
+import com.example.coffeeshop.dto.TrendingCafe;
 import com.example.coffeeshop.model.Cafe;
+import com.example.coffeeshop.model.CafeCard;
+import com.example.coffeeshop.service.CafeCardService;
 import com.example.coffeeshop.service.CafeService;
+import com.example.coffeeshop.service.TrendingService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/cafes")
 public class CafeController {
 
+    /** Response header carrying the cursor for the next page; absent on the last page. */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private com.example.coffeeshop.service.CafeService cafeService;
 
+    @Autowired
+    private CafeCardService cafeCardService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Lists the whole catalogue as a JSON array, streamed straight from a Mongo cursor.
+     * Like every listing below, it answers If-None-Match with 304 before reading any cafe.
+     */
     @GetMapping
-    public List<Cafe> getAllCafes() {
-        return cafeService.getAllCafes();
+    public ResponseEntity<StreamingResponseBody> getAllCafes(WebRequest request) {
+        String etag = cafeService.catalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(streamCafes(true));
+    }
+
+    /**
+     * Lists the cafes tagged with all (mode=all) or any (mode=any) of the comma-separated tags.
+     * Only the first page of {@link #getCafesPage} is returned; continue from X-Next-Cursor with
+     * the limit parameter set.
+     */
+    @GetMapping(params = {"tags", "!limit"})
+    public ResponseEntity<?> getCafesByTags(@RequestParam String tags,
+            @RequestParam(defaultValue = "all") String mode,
+            WebRequest request) {
+        if (parseTags(tags).isEmpty()) {
+            return ResponseEntity.badRequest().body("At least one tag is required");
+        }
+        return getCafesPage(null, CafeService.MAX_PAGE_SIZE, "id", tags, mode, request);
+    }
+
+    /**
+     * Returns one keyset page of cafes, ordered by id or, with sort=rating, by average rating,
+     * optionally filtered by tags as in {@link #getCafesByTags}.
+     * X-Next-Cursor is set when more cafes may follow; pass it back as "after" to fetch the next page.
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<?> getCafesPage(@RequestParam(required = false) String after,
+            @RequestParam int limit,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String tags,
+            @RequestParam(defaultValue = "all") String mode,
+            WebRequest request) {
+        String etag = cafeService.catalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        int pageSize = Math.max(1, Math.min(limit, CafeService.MAX_PAGE_SIZE));
+        try {
+            List<Cafe> page = cafeService.getCafesPage(after, pageSize, sort, parseTags(tags), mode);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+            if (page.size() == pageSize) {
+                response.header(NEXT_CURSOR_HEADER, cafeService.cursorOf(page.get(page.size() - 1), sort));
+            }
+            return response.body(page);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
     }
 
+    /**
+     * Streams every cafe as newline-delimited JSON, one document per line, as it is read.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCafes(WebRequest request) {
+        // Distinct from the JSON array's tag, since both are served from the same URL.
+        String etag = cafeService.catalogETag() + "-ndjson";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(streamCafes(false));
+    }
+
+    /**
+     * Lists cafes within {@code radius} meters of the given point, nearest first.
+     */
+    @GetMapping("/near")
+    public ResponseEntity<?> getCafesNear(@RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "1000") double radius,
+            @RequestParam(defaultValue = "50") int limit,
+            WebRequest request) {
+        String etag = cafeService.catalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok().eTag(etag).body(cafeService.findCafesNear(lat, lon, radius, limit));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns one page of listing cards (cafe, rating summary, top photo and tag weights),
+     * paged like {@link #getCafesPage}.
+     */
+    @GetMapping("/cards")
+    public ResponseEntity<?> getCafeCards(@RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "id") String sort,
+            WebRequest request) {
+        String etag = cafeService.catalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        int pageSize = Math.max(1, Math.min(limit, CafeService.MAX_PAGE_SIZE));
+        try {
+            List<CafeCard> page = cafeCardService.getCardsPage(after, pageSize, sort);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+            if (page.size() == pageSize) {
+                response.header(NEXT_CURSOR_HEADER, cafeCardService.cursorOf(page.get(page.size() - 1), sort));
+            }
+            return response.body(page);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    /**
+     * Full-text search over cafe names, descriptions, addresses and tags, most relevant first.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchCafes(@RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit,
+            WebRequest request) {
+        String etag = cafeService.catalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok().eTag(etag).body(cafeService.searchCafes(q, limit));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    /**
+     * Type-ahead suggestions for the text typed so far, answered from memory.
+     */
+    @GetMapping("/autocomplete")
+    public List<CafeSuggestion> autocomplete(@RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return cafeService.autocomplete(q, limit);
+    }
+
+    /**
+     * The most active cafes of the last few days, served from the in-memory leaderboard.
+     */
+    @GetMapping("/trending")
+    public List<TrendingCafe> getTrending(@RequestParam(defaultValue = "10") int limit) {
+        return trendingService.getTrending(limit);
+    }
+
+    /**
+     * Returns a cafe, or 304 when If-None-Match still matches; the cafe is then taken from the
+     * detail cache and not serialized.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Cafe> getCafeById(@PathVariable String id) {
+    public ResponseEntity<Cafe> getCafeById(@PathVariable String id, WebRequest request) {
         Cafe cafe = cafeService.getCafeById(id);
         if (cafe != null) {
-            return ResponseEntity.ok(cafe);
+            String etag = cafeService.eTagOf(cafe);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok().eTag(etag).body(cafe);
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -38,4 +225,42 @@ public class CafeController {
         Cafe created = cafeService.createCafe(cafe);
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
-}
\ No newline at end of file
+
+    // Tags are stored trimmed and lower case, see TagService.
+    private List<String> parseTags(String tags) {
+        if (tags == null) {
+            return List.of();
+        }
+        return Arrays.stream(tags.split(","))
+                .map(tag -> tag.trim().toLowerCase())
+                .filter(tag -> !tag.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private StreamingResponseBody streamCafes(boolean jsonArray) {
+        // Flushing after every document would turn each cafe into its own network write.
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                if (jsonArray) {
+                    generator.writeStartArray();
+                }
+                cafeService.streamCafes(cafe -> {
+                    try {
+                        writer.writeValue(generator, cafe);
+                        if (!jsonArray) {
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                if (jsonArray) {
+                    generator.writeEndArray();
+                }
+            }
+        };
+    }
+}
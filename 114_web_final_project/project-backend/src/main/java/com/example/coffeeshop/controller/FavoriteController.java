@@ -0,0 +1,59 @@
+package com.example.coffeeshop.controller;
+
+import com.example.coffeeshop.model.Cafe;
+import com.example.coffeeshop.model.User;
+import com.example.coffeeshop.service.FavoriteService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controller for the signed-in member's favourite cafes.
+ */
+@RestController
+@RequestMapping("/api/favorites")
+public class FavoriteController {
+
+    private final FavoriteService favoriteService;
+
+    public FavoriteController(FavoriteService favoriteService) {
+        this.favoriteService = favoriteService;
+    }
+
+    @GetMapping
+    public List<Cafe> listFavorites(@AuthenticationPrincipal User user) {
+        return favoriteService.getFavoriteCafes(user.getId());
+    }
+
+    @PutMapping("/{cafeId}")
+    public ResponseEntity<Void> addFavorite(@PathVariable String cafeId, @AuthenticationPrincipal User user) {
+        try {
+            boolean added = favoriteService.addFavorite(user.getId(), cafeId);
+            return ResponseEntity.status(added ? HttpStatus.CREATED : HttpStatus.OK).build();
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @DeleteMapping("/{cafeId}")
+    public ResponseEntity<Void> removeFavorite(@PathVariable String cafeId, @AuthenticationPrincipal User user) {
+        favoriteService.removeFavorite(user.getId(), cafeId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Takes a JSON array of cafe ids and answers, for each, whether it is a favourite.
+     */
+    @PostMapping("/contains")
+    public ResponseEntity<?> containsFavorites(@RequestBody List<String> cafeIds,
+            @AuthenticationPrincipal User user) {
+        try {
+            return ResponseEntity.ok(favoriteService.containsFavorites(user.getId(), cafeIds));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+}
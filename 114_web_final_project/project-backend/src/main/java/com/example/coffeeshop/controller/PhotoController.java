@@ -0,0 +1,71 @@
+package com.example.coffeeshop.controller;
+
+import com.example.coffeeshop.dto.PhotoRequest;
+import com.example.coffeeshop.model.Photo;
+import com.example.coffeeshop.model.User;
+import com.example.coffeeshop.service.PhotoService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for cafe photos.
+ * Lists photos most voted first, and lets members add photos and vote for them.
+ */
+@RestController
+@RequestMapping("/api/cafes/{cafeId}/photos")
+public class PhotoController {
+
+    private final PhotoService photoService;
+
+    public PhotoController(PhotoService photoService) {
+        this.photoService = photoService;
+    }
+
+    @GetMapping
+    public List<Photo> listPhotos(@PathVariable String cafeId,
+            @RequestParam(defaultValue = "12") int limit) {
+        return photoService.getPhotos(cafeId, limit);
+    }
+
+    /**
+     * Returns the cafe's most voted photo, used as its hero image.
+     */
+    @GetMapping("/top")
+    public ResponseEntity<Photo> topPhoto(@PathVariable String cafeId) {
+        Photo photo = photoService.getHeroPhoto(cafeId);
+        if (photo == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(photo);
+    }
+
+    @PostMapping
+    public ResponseEntity<Photo> addPhoto(@PathVariable String cafeId,
+            @Valid @RequestBody PhotoRequest request,
+            @AuthenticationPrincipal User user) {
+        try {
+            Photo photo = photoService.addPhoto(cafeId, user.getId(), request.getUrl());
+            return ResponseEntity.status(HttpStatus.CREATED).body(photo);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Toggles the signed-in user's vote for the photo: the first call votes, the next withdraws it.
+     */
+    @PostMapping("/{photoId}/vote")
+    public ResponseEntity<Photo> vote(@PathVariable String cafeId, @PathVariable String photoId,
+            @AuthenticationPrincipal User user) {
+        try {
+            return ResponseEntity.ok(photoService.vote(cafeId, photoId, user.getId()));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
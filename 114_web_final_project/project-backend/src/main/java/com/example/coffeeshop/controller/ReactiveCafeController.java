@@ -0,0 +1,52 @@
+package com.example.coffeeshop.controller;
+
+import com.example.coffeeshop.model.Cafe;
+import com.example.coffeeshop.model.Review;
+import com.example.coffeeshop.service.ReactiveCatalogService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * Streaming read API for map and listing clients that consume large result sets.
+ * Responses are newline-delimited JSON written as documents arrive from MongoDB; a slow
+ * client slows the database reads down instead of growing a buffer on the server.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+public class ReactiveCafeController {
+
+    private final ReactiveCatalogService catalogService;
+
+    public ReactiveCafeController(ReactiveCatalogService catalogService) {
+        this.catalogService = catalogService;
+    }
+
+    @GetMapping(value = "/cafes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Cafe> streamCafes() {
+        return catalogService.streamCafes();
+    }
+
+    @GetMapping(value = "/cafes/within", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Cafe> streamCafesWithin(@RequestParam double south,
+            @RequestParam double west,
+            @RequestParam double north,
+            @RequestParam double east) {
+        return catalogService.streamCafesWithin(south, west, north, east);
+    }
+
+    @GetMapping(value = "/cafes/{cafeId}/reviews", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Review> streamReviews(@PathVariable String cafeId) {
+        return catalogService.streamReviews(cafeId);
+    }
+
+    /**
+     * Invalid arguments are rejected before any document is read, so the 400 is sent instead of
+     * the stream. The handler methods must return the Flux itself for MVC to stream it.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(ex.getMessage());
+    }
+}
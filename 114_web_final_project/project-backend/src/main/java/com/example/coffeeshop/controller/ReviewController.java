@@ -4,12 +4,15 @@ import com.example.coffeeshop.dto.ReviewRequest;
 import com.example.coffeeshop.model.Review;
 import com.example.coffeeshop.service.ReviewService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.security.Principal;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST controller for cafe reviews.
@@ -25,9 +28,33 @@ public class ReviewController {
         this.reviewService = reviewService;
     }
 
+    /**
+     * Lists one page of the cafe's reviews, newest first. X-Next-Cursor is set when more reviews
+     * may follow; pass it back as "after" for the next page. Image URLs are only included with
+     * includeImages=true. Answers 304 without querying the reviews when the client's
+     * If-None-Match still matches.
+     */
     @GetMapping
-    public List<Review> listReviews(@PathVariable String cafeId) {
-        return reviewService.getReviewsByCafe(cafeId);
+    public ResponseEntity<?> listReviews(@PathVariable String cafeId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean includeImages,
+            WebRequest request) {
+        String etag = reviewService.reviewsETag(cafeId);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        int pageSize = Math.max(1, Math.min(limit, ReviewService.MAX_PAGE_SIZE));
+        try {
+            List<Review> page = reviewService.getReviewsByCafe(cafeId, after, pageSize, includeImages);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+            if (page.size() == pageSize) {
+                response.header(CafeController.NEXT_CURSOR_HEADER, reviewService.cursorOf(page.get(page.size() - 1)));
+            }
+            return response.body(page);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
     }
 
     @PostMapping
@@ -53,7 +80,13 @@ public class ReviewController {
             userId = principal.getName();
         }
         Review review = new Review(cafeId, userId, userEmail, (int) request.getRating(), request.getComment());
-        Review saved = reviewService.addReview(review);
-        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        try {
+            Review saved = reviewService.addReview(review);
+            // In write-behind mode the review is only queued; 202 tells the client it is not stored yet.
+            return ResponseEntity.status(reviewService.isWriteBehind() ? HttpStatus.ACCEPTED : HttpStatus.CREATED)
+                    .body(saved);
+        } catch (RejectedExecutionException ex) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
     }
 }
\ No newline at end of file
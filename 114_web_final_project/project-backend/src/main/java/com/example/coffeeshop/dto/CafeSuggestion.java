@@ -0,0 +1,44 @@
+package com.example.coffeeshop.dto;
+
+/**
+ * Lightweight autocomplete entry.
+ * Carries just enough to render a suggestion and open the cafe page.
+ */
+public class CafeSuggestion {
+    private String id;
+    private String name;
+    private String address;
+
+    public CafeSuggestion() {
+    }
+
+    public CafeSuggestion(String id, String name, String address) {
+        this.id = id;
+        this.name = name;
+        this.address = address;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+}
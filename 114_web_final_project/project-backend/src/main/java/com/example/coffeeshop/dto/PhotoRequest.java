@@ -0,0 +1,22 @@
+package com.example.coffeeshop.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Request body for adding a photo to a cafe.
+ * The image itself is hosted elsewhere; only its URL is stored.
+ */
+public class PhotoRequest {
+    @NotBlank
+    @Size(max = 2048)
+    private String url;
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.coffeeshop.dto;
+
+/**
+ * Leaderboard entry of the trending cafes.
+ * The score is the cafe's recent activity, with older events counting for less.
+ */
+public class TrendingCafe {
+    private String id;
+    private String name;
+    private String address;
+    private double score;
+
+    public TrendingCafe() {
+    }
+
+    public TrendingCafe(String id, String name, String address, double score) {
+        this.id = id;
+        this.name = name;
+        this.address = address;
+        this.score = score;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.coffeeshop.index;
+
+import org.bson.types.ObjectId;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable set of MongoDB ObjectIds packed into primitive arrays.
+ * Each 12-byte id is stored as a long and an int in sorted parallel arrays, about 12 bytes per
+ * member instead of the hundred or so a HashSet of hex strings needs, and membership is a binary
+ * search. Updates return a new set, which suits small, rarely changing sets read concurrently.
+ */
+public final class CompactIdSet {
+
+    private static final CompactIdSet EMPTY = new CompactIdSet(new long[0], new int[0]);
+
+    private final long[] highs;
+    private final int[] lows;
+
+    private CompactIdSet(long[] highs, int[] lows) {
+        this.highs = highs;
+        this.lows = lows;
+    }
+
+    public static CompactIdSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a set from hex ids; ids that are not valid ObjectIds are skipped.
+     */
+    public static CompactIdSet of(Collection<String> ids) {
+        int count = 0;
+        long[] rawHighs = new long[ids.size()];
+        int[] rawLows = new int[ids.size()];
+        for (String id : ids) {
+            if (ObjectId.isValid(id)) {
+                byte[] bytes = new ObjectId(id).toByteArray();
+                rawHighs[count] = high(bytes);
+                rawLows[count] = low(bytes);
+                count++;
+            }
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compare(rawHighs[a], rawLows[a], rawHighs[b], rawLows[b]));
+
+        long[] highs = new long[count];
+        int[] lows = new int[count];
+        int size = 0;
+        for (int i : order) {
+            if (size == 0 || compare(highs[size - 1], lows[size - 1], rawHighs[i], rawLows[i]) != 0) {
+                highs[size] = rawHighs[i];
+                lows[size] = rawLows[i];
+                size++;
+            }
+        }
+        return new CompactIdSet(Arrays.copyOf(highs, size), Arrays.copyOf(lows, size));
+    }
+
+    public int size() {
+        return highs.length;
+    }
+
+    public boolean contains(String id) {
+        return ObjectId.isValid(id) && indexOf(new ObjectId(id).toByteArray()) >= 0;
+    }
+
+    /**
+     * Returns a set that also contains the id, or this set if it already does.
+     */
+    public CompactIdSet with(String id) {
+        if (!ObjectId.isValid(id)) {
+            return this;
+        }
+        byte[] bytes = new ObjectId(id).toByteArray();
+        int index = indexOf(bytes);
+        if (index >= 0) {
+            return this;
+        }
+        int insertAt = -index - 1;
+        long[] newHighs = new long[highs.length + 1];
+        int[] newLows = new int[lows.length + 1];
+        System.arraycopy(highs, 0, newHighs, 0, insertAt);
+        System.arraycopy(lows, 0, newLows, 0, insertAt);
+        newHighs[insertAt] = high(bytes);
+        newLows[insertAt] = low(bytes);
+        System.arraycopy(highs, insertAt, newHighs, insertAt + 1, highs.length - insertAt);
+        System.arraycopy(lows, insertAt, newLows, insertAt + 1, lows.length - insertAt);
+        return new CompactIdSet(newHighs, newLows);
+    }
+
+    /**
+     * Returns a set without the id, or this set if it does not contain it.
+     */
+    public CompactIdSet without(String id) {
+        int index = ObjectId.isValid(id) ? indexOf(new ObjectId(id).toByteArray()) : -1;
+        if (index < 0) {
+            return this;
+        }
+        long[] newHighs = new long[highs.length - 1];
+        int[] newLows = new int[lows.length - 1];
+        System.arraycopy(highs, 0, newHighs, 0, index);
+        System.arraycopy(lows, 0, newLows, 0, index);
+        System.arraycopy(highs, index + 1, newHighs, index, highs.length - index - 1);
+        System.arraycopy(lows, index + 1, newLows, index, lows.length - index - 1);
+        return new CompactIdSet(newHighs, newLows);
+    }
+
+    // Binary search; returns -(insertion point) - 1 when absent, like Arrays.binarySearch.
+    private int indexOf(byte[] id) {
+        long high = high(id);
+        int low = low(id);
+        int from = 0;
+        int to = highs.length - 1;
+        while (from <= to) {
+            int mid = (from + to) >>> 1;
+            int cmp = compare(highs[mid], lows[mid], high, low);
+            if (cmp < 0) {
+                from = mid + 1;
+            } else if (cmp > 0) {
+                to = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(from + 1);
+    }
+
+    // First 8 bytes of the 12-byte id.
+    private static long high(byte[] id) {
+        long high = 0;
+        for (int i = 0; i < 8; i++) {
+            high = (high << 8) | (id[i] & 0xFF);
+        }
+        return high;
+    }
+
+    // Last 4 bytes of the 12-byte id.
+    private static int low(byte[] id) {
+        int low = 0;
+        for (int i = 8; i < 12; i++) {
+            low = (low << 8) | (id[i] & 0xFF);
+        }
+        return low;
+    }
+
+    private static int compare(long highA, int lowA, long highB, int lowB) {
+        int cmp = Long.compare(highA, highB);
+        return cmp != 0 ? cmp : Integer.compare(lowA, lowB);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.coffeeshop.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Keeps the {@code capacity} highest scoring ids, where every event's weight halves once per
+ * {@code halfLife}.
+ * Scores use forward decay: an event is stored as {@code weight * 2^((t - landmark) / halfLife)},
+ * so older scores never have to be touched as time passes and the ranking only changes when an
+ * event arrives. The ranked set holds {@code capacity} entries, but a score is kept for every id
+ * that had an event since the last rebase, which happens about once per 50 half-lives; ids that
+ * decayed to nothing are only dropped then. Safe for concurrent use.
+ */
+public class DecayingTopK {
+
+    // Rebase once stored scores have grown by about 2^50, well inside double range.
+    private static final double MAX_EXPONENT = 50;
+    // Entries decayed below this at a rebase are dropped, so idle ids do not accumulate.
+    private static final double NEGLIGIBLE_SCORE = 1e-6;
+
+    private static final Comparator<Ranked> RANKING = Comparator.comparingDouble((Ranked r) -> r.score)
+            .reversed()
+            .thenComparing(r -> r.id);
+
+    private final int capacity;
+    private final double halfLifeMillis;
+    private final Map<String, Double> scores = new HashMap<>();
+    private final TreeSet<Ranked> top = new TreeSet<>(RANKING);
+    private long landmarkMillis;
+    private long version;
+
+    public DecayingTopK(int capacity, long halfLifeMillis, long nowMillis) {
+        if (capacity < 1 || halfLifeMillis < 1) {
+            throw new IllegalArgumentException("capacity and halfLife must be positive");
+        }
+        this.capacity = capacity;
+        this.halfLifeMillis = halfLifeMillis;
+        this.landmarkMillis = nowMillis;
+    }
+
+    /**
+     * Adds an event of the given weight that happened at {@code atMillis}.
+     */
+    public synchronized void add(String id, double weight, long atMillis) {
+        if (weight <= 0) {
+            return;
+        }
+        if ((atMillis - landmarkMillis) / halfLifeMillis > MAX_EXPONENT) {
+            rebase(atMillis);
+        }
+        double increment = weight * Math.pow(2, (atMillis - landmarkMillis) / halfLifeMillis);
+        Double previous = scores.get(id);
+        double score = previous == null ? increment : previous + increment;
+        scores.put(id, score);
+
+        if (previous != null) {
+            top.remove(new Ranked(id, previous));
+        }
+        top.add(new Ranked(id, score));
+        if (top.size() > capacity) {
+            top.pollLast();
+        }
+        version++;
+    }
+
+    /**
+     * Returns the ranked ids with their scores decayed to {@code nowMillis}, highest first.
+     */
+    public synchronized List<Ranked> top(long nowMillis) {
+        double factor = Math.pow(2, -(nowMillis - landmarkMillis) / halfLifeMillis);
+        List<Ranked> ranked = new ArrayList<>(top.size());
+        for (Ranked entry : top) {
+            ranked.add(new Ranked(entry.id, entry.score * factor));
+        }
+        return ranked;
+    }
+
+    /**
+     * Incremented on every change of the ranking, so readers can tell whether a copy is current.
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    public synchronized int size() {
+        return scores.size();
+    }
+
+    // Moves the landmark to now, scaling every stored score down by the same factor.
+    private void rebase(long nowMillis) {
+        double factor = Math.pow(2, -(nowMillis - landmarkMillis) / halfLifeMillis);
+        Iterator<Map.Entry<String, Double>> entries = scores.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Double> entry = entries.next();
+            double score = entry.getValue() * factor;
+            if (score < NEGLIGIBLE_SCORE) {
+                entries.remove();
+            } else {
+                entry.setValue(score);
+            }
+        }
+        top.clear();
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            top.add(new Ranked(entry.getKey(), entry.getValue()));
+            if (top.size() > capacity) {
+                top.pollLast();
+            }
+        }
+        landmarkMillis = nowMillis;
+    }
+
+    /**
+     * An id and its score.
+     */
+    public static final class Ranked {
+        private final String id;
+        private final double score;
+
+        private Ranked(String id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.coffeeshop.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory spatial index that buckets points into a fixed latitude/longitude grid.
+ * A radius query only visits the cells overlapping the search circle and then filters
+ * candidates by great-circle distance, so it never scans the whole data set.
+ * Only ids and coordinates are kept; callers resolve hits to their documents.
+ * Safe for concurrent reads and writes.
+ */
+public class GeoGridIndex {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private final double cellDegrees;
+    private final long columns;
+    private final Map<Long, Map<String, Entry>> cells = new ConcurrentHashMap<>();
+    private final Map<String, Long> cellById = new ConcurrentHashMap<>();
+
+    /**
+     * @param cellDegrees edge length of a grid cell in degrees; about 0.01 (roughly 1 km)
+     *                    suits city-scale "near me" queries
+     */
+    public GeoGridIndex(double cellDegrees) {
+        if (cellDegrees <= 0 || cellDegrees > 90) {
+            throw new IllegalArgumentException("cellDegrees must be in (0, 90]");
+        }
+        this.cellDegrees = cellDegrees;
+        this.columns = (long) Math.ceil(360.0 / cellDegrees);
+    }
+
+    /**
+     * Adds or moves the point with the given id.
+     * Both maps are updated while holding the id's entry in cellById, so concurrent writes for
+     * the same id cannot leave it in two cells or in a cell other than the recorded one.
+     */
+    public void put(String id, double latitude, double longitude) {
+        long cell = cellKey(row(latitude), column(longitude));
+        cellById.compute(id, (key, previous) -> {
+            if (previous != null && previous != cell) {
+                removeFromCell(previous, id);
+            }
+            cells.computeIfAbsent(cell, k -> new ConcurrentHashMap<>()).put(id, new Entry(id, latitude, longitude));
+            return cell;
+        });
+    }
+
+    public void remove(String id) {
+        cellById.computeIfPresent(id, (key, cell) -> {
+            removeFromCell(cell, id);
+            return null;
+        });
+    }
+
+    public void clear() {
+        cells.clear();
+        cellById.clear();
+    }
+
+    public int size() {
+        return cellById.size();
+    }
+
+    /**
+     * Returns up to {@code limit} ids within {@code radiusMeters} of the given point,
+     * nearest first.
+     */
+    public List<Hit> near(double latitude, double longitude, double radiusMeters, int limit) {
+        double latSpan = Math.toDegrees(radiusMeters / EARTH_RADIUS_METERS);
+        long minRow = row(Math.max(-90.0, latitude - latSpan));
+        long maxRow = row(Math.min(90.0, latitude + latSpan));
+
+        // Longitude degrees shrink towards the poles; near them every column has to be visited.
+        double cosLat = Math.cos(Math.toRadians(Math.min(90.0, Math.abs(latitude) + latSpan)));
+        double lonSpan = cosLat > 1e-6 ? latSpan / cosLat : 180.0;
+        long firstColumn = 0;
+        long columnCount = columns;
+        if (lonSpan < 180.0) {
+            firstColumn = column(longitude - lonSpan);
+            // Columns wrap around the antimeridian, so count the span modulo the grid width.
+            columnCount = Math.floorMod(column(longitude + lonSpan) - firstColumn, columns) + 1;
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (long r = minRow; r <= maxRow; r++) {
+            for (long c = 0; c < columnCount; c++) {
+                Map<String, Entry> cell = cells.get(cellKey(r, Math.floorMod(firstColumn + c, columns)));
+                if (cell == null) {
+                    continue;
+                }
+                for (Entry entry : cell.values()) {
+                    double distance = distanceMeters(latitude, longitude, entry.latitude, entry.longitude);
+                    if (distance <= radiusMeters) {
+                        hits.add(new Hit(entry.id, distance));
+                    }
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::getDistanceMeters));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * Great-circle distance between two points using the haversine formula.
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private void removeFromCell(long cell, String id) {
+        Map<String, Entry> entries = cells.get(cell);
+        if (entries != null) {
+            entries.remove(id);
+        }
+    }
+
+    private long row(double latitude) {
+        return (long) Math.floor((latitude + 90.0) / cellDegrees);
+    }
+
+    private long column(double longitude) {
+        return Math.floorMod((long) Math.floor((longitude + 180.0) / cellDegrees), columns);
+    }
+
+    private long cellKey(long row, long column) {
+        return row * columns + column;
+    }
+
+    private static final class Entry {
+        private final String id;
+        private final double latitude;
+        private final double longitude;
+
+        private Entry(String id, double latitude, double longitude) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    /**
+     * An id found by a radius query together with its distance from the query point.
+     */
+    public static final class Hit {
+        private final String id;
+        private final double distanceMeters;
+
+        public Hit(String id, double distanceMeters) {
+            this.id = id;
+            this.distanceMeters = distanceMeters;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public double getDistanceMeters() {
+            return distanceMeters;
+        }
+    }
+}
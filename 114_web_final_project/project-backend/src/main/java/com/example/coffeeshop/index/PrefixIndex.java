@@ -0,0 +1,212 @@
+package com.example.coffeeshop.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory type-ahead index over short labels such as cafe names.
+ * Every word of a label is indexed under each of its prefixes up to {@code maxPrefixLength}
+ * characters, so a lookup is a single hash probe per query word. Han characters are not
+ * separated by spaces, so every position in a run of them starts a word of its own, which makes
+ * any substring of a Chinese name matchable. Safe for concurrent reads and writes.
+ */
+public class PrefixIndex<T> {
+
+    private final int maxPrefixLength;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Set<String>> idsByPrefix = new HashMap<>();
+    private final Map<String, Entry<T>> entriesById = new HashMap<>();
+
+    public PrefixIndex(int maxPrefixLength) {
+        if (maxPrefixLength < 1) {
+            throw new IllegalArgumentException("maxPrefixLength must be positive");
+        }
+        this.maxPrefixLength = maxPrefixLength;
+    }
+
+    /**
+     * Adds or replaces the entry with the given id. Higher {@code weight} ranks first among
+     * equally good matches.
+     */
+    public void put(String id, String label, double weight, T value) {
+        Set<String> words = words(label);
+        lock.writeLock().lock();
+        try {
+            Entry<T> previous = entriesById.put(id, new Entry<>(words, weight, value));
+            if (previous != null) {
+                unlink(id, previous);
+            }
+            for (String word : words) {
+                for (int length = 1; length <= Math.min(word.length(), maxPrefixLength); length++) {
+                    idsByPrefix.computeIfAbsent(word.substring(0, length), key -> new HashSet<>()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Entry<T> previous = entriesById.remove(id);
+            if (previous != null) {
+                unlink(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entriesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} values whose label has a word starting with every word of the
+     * query. Labels whose first word matches rank first, then higher weights.
+     */
+    public List<T> suggest(String query, int limit) {
+        List<String> queryWords = new ArrayList<>(words(query));
+        if (queryWords.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            // Probe the most selective word first and verify the others on each candidate.
+            List<Set<String>> postings = new ArrayList<>();
+            for (String word : queryWords) {
+                Set<String> ids = idsByPrefix.get(truncate(word));
+                if (ids == null) {
+                    return List.of();
+                }
+                postings.add(ids);
+            }
+            Set<String> smallest = postings.stream().min(Comparator.comparingInt(Set::size)).get();
+
+            Comparator<Candidate<T>> ranking = Comparator.<Candidate<T>>comparingInt(c -> c.leading ? 1 : 0)
+                    .thenComparingDouble(c -> c.entry.weight);
+            PriorityQueue<Candidate<T>> best = new PriorityQueue<>(limit + 1, ranking);
+            for (String id : smallest) {
+                Entry<T> entry = entriesById.get(id);
+                if (!entry.matchesAll(queryWords)) {
+                    continue;
+                }
+                best.add(new Candidate<>(entry, entry.leadingWordMatches(queryWords.get(0))));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<T> result = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                result.add(best.poll().entry.value);
+            }
+            Collections.reverse(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unlink(String id, Entry<T> entry) {
+        for (String word : entry.words) {
+            for (int length = 1; length <= Math.min(word.length(), maxPrefixLength); length++) {
+                String prefix = word.substring(0, length);
+                Set<String> ids = idsByPrefix.get(prefix);
+                if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                    idsByPrefix.remove(prefix);
+                }
+            }
+        }
+    }
+
+    private String truncate(String word) {
+        return word.length() > maxPrefixLength ? word.substring(0, maxPrefixLength) : word;
+    }
+
+    /**
+     * Lower-cased, accent-free words of the text in order of appearance; a run of Han characters
+     * contributes one word per position.
+     */
+    private static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) {
+            return words;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                addWord(words, normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static void addWord(Set<String> words, String word) {
+        words.add(word);
+        for (int i = 1; i < word.length(); i++) {
+            if (Character.UnicodeScript.of(word.codePointAt(i)) == Character.UnicodeScript.HAN) {
+                words.add(word.substring(i));
+            }
+        }
+    }
+
+    private static final class Entry<T> {
+        private final Set<String> words;
+        private final double weight;
+        private final T value;
+
+        private Entry(Set<String> words, double weight, T value) {
+            this.words = words;
+            this.weight = weight;
+            this.value = value;
+        }
+
+        private boolean matchesAll(List<String> queryWords) {
+            for (String queryWord : queryWords) {
+                if (words.stream().noneMatch(word -> word.startsWith(queryWord))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean leadingWordMatches(String queryWord) {
+            return !words.isEmpty() && words.iterator().next().startsWith(queryWord);
+        }
+    }
+
+    private static final class Candidate<T> {
+        private final Entry<T> entry;
+        private final boolean leading;
+
+        private Candidate(Entry<T> entry, boolean leading) {
+            this.entry = entry;
+            this.leading = leading;
+        }
+    }
+}
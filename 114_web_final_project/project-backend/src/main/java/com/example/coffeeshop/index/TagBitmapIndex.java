@@ -0,0 +1,202 @@
+package com.example.coffeeshop.index;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index from tag to the ids of the documents carrying it.
+ * Every id is given a dense int ordinal and each tag keeps a bitmap of ordinals, so matching
+ * several tags is a bitwise AND (all) or OR (any) of a few bitmaps rather than a scan.
+ * Ids are also kept sorted, so a page of matches in id order does not require sorting them all.
+ * Safe for concurrent reads and writes.
+ */
+public class TagBitmapIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, BitSet> bitmapsByTag = new HashMap<>();
+    private final NavigableMap<String, Integer> ordinalsById = new TreeMap<>();
+    private final Map<String, Set<String>> tagsById = new HashMap<>();
+    private final List<String> idsByOrdinal = new ArrayList<>();
+    // Ordinals of removed ids, reused so the bitmaps stay dense.
+    private final List<Integer> freeOrdinals = new ArrayList<>();
+
+    /**
+     * Replaces the tags recorded for the given id.
+     */
+    public void put(String id, Collection<String> tags) {
+        Set<String> updated = new HashSet<>(tags);
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsById.get(id);
+            if (ordinal == null) {
+                ordinal = allocate(id);
+            }
+            Set<String> previous = tagsById.put(id, updated);
+            if (previous != null) {
+                for (String tag : previous) {
+                    if (!updated.contains(tag)) {
+                        clearBit(tag, ordinal);
+                    }
+                }
+            }
+            for (String tag : updated) {
+                bitmapsByTag.computeIfAbsent(tag, key -> new BitSet()).set(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsById.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            for (String tag : tagsById.remove(id)) {
+                clearBit(tag, ordinal);
+            }
+            idsByOrdinal.set(ordinal, null);
+            freeOrdinals.add(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            bitmapsByTag.clear();
+            ordinalsById.clear();
+            tagsById.clear();
+            idsByOrdinal.clear();
+            freeOrdinals.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids carrying every one of the tags ({@code matchAll}) or at least one of them,
+     * in no particular order, or null if there are more than {@code maxIds}. No tags match nothing.
+     */
+    public List<String> matching(Collection<String> tags, boolean matchAll, int maxIds) {
+        lock.readLock().lock();
+        try {
+            BitSet result = match(tags, matchAll);
+            int count = result.cardinality();
+            if (count > maxIds) {
+                return null;
+            }
+            List<String> ids = new ArrayList<>(count);
+            for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+                ids.add(idsByOrdinal.get(ordinal));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} matching ids greater than {@code afterId} (null for the first
+     * page), in ascending order.
+     * A large match set is read by walking the sorted ids from {@code afterId}, which finds a page
+     * after about {@code limit * size / matches} ids; a small one is collected and sorted instead.
+     */
+    public List<String> page(Collection<String> tags, boolean matchAll, String afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet result = match(tags, matchAll);
+            long count = result.cardinality();
+            Map<String, Integer> candidates = afterId == null ? ordinalsById : ordinalsById.tailMap(afterId, false);
+            List<String> page = new ArrayList<>(Math.min(limit, (int) count));
+            if (count * count > (long) ordinalsById.size() * limit) {
+                for (Map.Entry<String, Integer> entry : candidates.entrySet()) {
+                    if (page.size() == limit) {
+                        break;
+                    }
+                    if (result.get(entry.getValue())) {
+                        page.add(entry.getKey());
+                    }
+                }
+                return page;
+            }
+            for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+                String id = idsByOrdinal.get(ordinal);
+                if (afterId == null || id.compareTo(afterId) > 0) {
+                    page.add(id);
+                }
+            }
+            page.sort(null);
+            return page.size() > limit ? new ArrayList<>(page.subList(0, limit)) : page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bitmap of the matching ordinals; a new set the caller may modify. Call with the read lock held.
+    private BitSet match(Collection<String> tags, boolean matchAll) {
+        BitSet result = null;
+        for (String tag : tags) {
+            BitSet bitmap = bitmapsByTag.get(tag);
+            if (bitmap == null) {
+                if (matchAll) {
+                    return new BitSet();
+                }
+                continue;
+            }
+            if (result == null) {
+                result = (BitSet) bitmap.clone();
+            } else if (matchAll) {
+                result.and(bitmap);
+            } else {
+                result.or(bitmap);
+            }
+        }
+        return result == null ? new BitSet() : result;
+    }
+
+    private int allocate(String id) {
+        int ordinal;
+        if (freeOrdinals.isEmpty()) {
+            ordinal = idsByOrdinal.size();
+            idsByOrdinal.add(id);
+        } else {
+            ordinal = freeOrdinals.remove(freeOrdinals.size() - 1);
+            idsByOrdinal.set(ordinal, id);
+        }
+        ordinalsById.put(id, ordinal);
+        return ordinal;
+    }
+
+    private void clearBit(String tag, int ordinal) {
+        BitSet bitmap = bitmapsByTag.get(tag);
+        if (bitmap != null) {
+            bitmap.clear(ordinal);
+            if (bitmap.isEmpty()) {
+                bitmapsByTag.remove(tag);
+            }
+        }
+    }
+}
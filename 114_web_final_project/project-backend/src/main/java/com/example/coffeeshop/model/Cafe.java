@@ -1,6 +1,15 @@
 package com.example.coffeeshop.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
@@ -12,18 +21,46 @@ import java.util.List;
  * metadata such as geolocation, tags and a human‑readable description.
  */
 @Document(collection = "cafes")
+@CompoundIndex(name = "rating_average_id", def = "{'ratingSummary.average': -1, '_id': 1}")
 public class Cafe {
     @Id
     private String id;
+    // Source OpenStreetMap element ("node/123456") for imported cafes; absent for user-created ones.
+    // Set only by the importer, whose upserts are keyed on it, so never read from request bodies.
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Indexed(unique = true, sparse = true)
+    private String osmId;
+    // Incremented on every write; the ETag of the cafe's detail response is derived from it.
+    // Template updates bump it automatically, bulk writes have to $inc it themselves.
+    @JsonIgnore
+    @Version
+    private Long version;
+    // Text index for /api/cafes/search; a match in the name counts most.
+    @TextIndexed(weight = 3)
     private String name;
+    @TextIndexed
     private String description;
+    @TextIndexed
     private String address;
     private double latitude;
     private double longitude;
+    // GeoJSON copy of latitude/longitude backing the 2dsphere index for radius queries.
+    // Kept in sync by the coordinate setters and not exposed in API responses.
+    @JsonIgnore
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint location;
     // Tags are stored as simple strings for flexibility.
     // Weighted voting and relationships are handled at the service layer.
+    // Multikey index for tag filtering when the in-memory tag index is disabled or still loading.
+    @Indexed
+    @TextIndexed(weight = 2)
     private List<String> tags = new ArrayList<>();
 
+    // Review statistics maintained by ReviewService; never computed from the reviews on read,
+    // and never read from request bodies.
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private CafeRatingSummary ratingSummary = new CafeRatingSummary();
+
     // Image URLs for the cafe
     private List<String> imageUrls = new ArrayList<>();
 
@@ -41,6 +78,7 @@ public class Cafe {
         this.address = address;
         this.latitude = latitude;
         this.longitude = longitude;
+        this.location = new GeoJsonPoint(longitude, latitude);
     }
 
     public String getId() {
@@ -51,6 +89,22 @@ public class Cafe {
         this.id = id;
     }
 
+    public String getOsmId() {
+        return osmId;
+    }
+
+    public void setOsmId(String osmId) {
+        this.osmId = osmId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -81,6 +135,7 @@ public class Cafe {
 
     public void setLatitude(double latitude) {
         this.latitude = latitude;
+        this.location = new GeoJsonPoint(longitude, latitude);
     }
 
     public double getLongitude() {
@@ -89,6 +144,15 @@ public class Cafe {
 
     public void setLongitude(double longitude) {
         this.longitude = longitude;
+        this.location = new GeoJsonPoint(longitude, latitude);
+    }
+
+    public GeoJsonPoint getLocation() {
+        return location;
+    }
+
+    public void setLocation(GeoJsonPoint location) {
+        this.location = location;
     }
 
     public List<String> getTags() {
@@ -99,6 +163,14 @@ public class Cafe {
         this.tags = tags;
     }
 
+    public CafeRatingSummary getRatingSummary() {
+        return ratingSummary;
+    }
+
+    public void setRatingSummary(CafeRatingSummary ratingSummary) {
+        this.ratingSummary = ratingSummary;
+    }
+
     public List<String> getImageUrls() {
         return imageUrls;
     }
@@ -0,0 +1,109 @@
+package com.example.coffeeshop.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Denormalized listing entry for one cafe, kept in its own collection.
+ * Holds everything a cafe card on the listing page shows, so the page needs a single query.
+ * The id is the cafe's id; CafeCardService updates the card whenever one of its sources changes.
+ */
+@Document(collection = "cafe_cards")
+@CompoundIndex(name = "rating_average_id", def = "{'ratingSummary.average': -1, '_id': 1}")
+// Lets a tag weight change find every card carrying the tag.
+@CompoundIndex(name = "tag_weights_name", def = "{'tagWeights.name': 1}")
+public class CafeCard {
+    @Id
+    private String id;
+    private String name;
+    private String address;
+    private double latitude;
+    private double longitude;
+    private CafeRatingSummary ratingSummary = new CafeRatingSummary();
+    // Most voted photo, or the cafe's first image while it has no photos.
+    private String imageUrl;
+    private List<TagWeight> tagWeights = new ArrayList<>();
+    // Incremented by every partial update, so a rebuild can tell the card changed after it was read.
+    @JsonIgnore
+    private long revision;
+
+    public CafeCard() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    public CafeRatingSummary getRatingSummary() {
+        return ratingSummary;
+    }
+
+    public void setRatingSummary(CafeRatingSummary ratingSummary) {
+        this.ratingSummary = ratingSummary;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public List<TagWeight> getTagWeights() {
+        return tagWeights;
+    }
+
+    public void setTagWeights(List<TagWeight> tagWeights) {
+        this.tagWeights = tagWeights;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.coffeeshop.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-aggregated review statistics embedded in each cafe document.
+ * Updated in place with atomic increments whenever a review is written, so listings can
+ * show and sort by rating without reading any reviews.
+ */
+public class CafeRatingSummary {
+    private long count;
+    private long sum;
+    private double average;
+    // Number of reviews per star value, keyed by the rating as a string ("0" to "5").
+    private Map<String, Long> histogram = new HashMap<>();
+
+    public CafeRatingSummary() {
+    }
+
+    /**
+     * Adds {@code times} reviews with the given rating and refreshes the average.
+     */
+    public void record(int rating, long times) {
+        count += times;
+        sum += (long) rating * times;
+        histogram.merge(String.valueOf(rating), times, Long::sum);
+        average = count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public void setSum(long sum) {
+        this.sum = sum;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    public void setAverage(double average) {
+        this.average = average;
+    }
+
+    public Map<String, Long> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(Map<String, Long> histogram) {
+        this.histogram = histogram;
+    }
+}
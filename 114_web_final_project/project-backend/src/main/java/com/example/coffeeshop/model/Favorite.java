@@ -1,6 +1,7 @@
 package com.example.coffeeshop.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
@@ -8,6 +9,8 @@ import org.springframework.data.mongodb.core.mapping.Document;
  * Favourites allow members to bookmark places for quick access.
  */
 @Document(collection = "favorites")
+// A cafe can be a user's favourite only once; also serves the per-user lookup.
+@CompoundIndex(name = "user_cafe", def = "{'userId': 1, 'cafeId': 1}", unique = true)
 public class Favorite {
     @Id
     private String id;
@@ -1,6 +1,8 @@
 package com.example.coffeeshop.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
@@ -8,6 +10,8 @@ import org.springframework.data.mongodb.core.mapping.Document;
  * Votes on photos are used to determine which image represents the cafe.
  */
 @Document(collection = "photos")
+// Serves a cafe's photos most voted first; the top photo is the first entry of the range.
+@CompoundIndex(name = "cafe_votes_id", def = "{'cafeId': 1, 'votes': -1, '_id': 1}")
 public class Photo {
     @Id
     private String id;
@@ -15,6 +19,9 @@ public class Photo {
     private String userId;
     private String url;
     private int votes;
+    // Incremented with every vote change, so the newer of two concurrent results can be told apart.
+    @JsonIgnore
+    private long voteRevision;
 
     public Photo() {
     }
@@ -69,4 +76,12 @@ public class Photo {
     public void incrementVotes() {
         this.votes++;
     }
-}
\ No newline at end of file
+
+    public long getVoteRevision() {
+        return voteRevision;
+    }
+
+    public void setVoteRevision(long voteRevision) {
+        this.voteRevision = voteRevision;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.coffeeshop.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Records that a user voted for a photo.
+ * A photo's vote count only changes when one of these is inserted or deleted.
+ */
+@Document(collection = "photo_votes")
+// A user can vote for a photo only once.
+@CompoundIndex(name = "photo_user", def = "{'photoId': 1, 'userId': 1}", unique = true)
+public class PhotoVote {
+    @Id
+    private String id;
+    private String photoId;
+    private String userId;
+
+    public PhotoVote() {
+    }
+
+    public PhotoVote(String photoId, String userId) {
+        this.photoId = photoId;
+        this.userId = userId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getPhotoId() {
+        return photoId;
+    }
+
+    public void setPhotoId(String photoId) {
+        this.photoId = photoId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+}
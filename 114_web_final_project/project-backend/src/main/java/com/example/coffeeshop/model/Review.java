@@ -2,6 +2,7 @@ package com.example.coffeeshop.model;
 
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
@@ -9,6 +10,8 @@ import java.util.Date;
 import java.util.List;
 
 @Document(collection = "reviews")
+// Serves a cafe's reviews newest first, with _id breaking ties for keyset pagination.
+@CompoundIndex(name = "cafe_created_id", def = "{'cafeId': 1, 'createdAt': -1, '_id': -1}")
 public class Review {
     @Id
     private String id;
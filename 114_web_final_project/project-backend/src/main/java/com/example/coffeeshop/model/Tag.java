@@ -11,6 +11,8 @@ import org.springframework.data.mongodb.core.mapping.Document;
 public class Tag {
     @Id
     private String id;
+    // Unique so concurrent first uses of a tag upsert one document instead of two. The index is
+    // created by TagService once duplicates left by older versions have been merged.
     private String name;
     private int weight;
 
@@ -0,0 +1,33 @@
+package com.example.coffeeshop.model;
+
+/**
+ * A tag together with its global weight, as embedded in a {@link CafeCard}.
+ */
+public class TagWeight {
+    private String name;
+    private long weight;
+
+    public TagWeight() {
+    }
+
+    public TagWeight(String name, long weight) {
+        this.name = name;
+        this.weight = weight;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    public void setWeight(long weight) {
+        this.weight = weight;
+    }
+}
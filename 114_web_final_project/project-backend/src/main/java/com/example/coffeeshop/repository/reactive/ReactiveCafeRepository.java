@@ -0,0 +1,20 @@
+package com.example.coffeeshop.repository.reactive;
+
+import com.example.coffeeshop.model.Cafe;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking counterpart of {@link com.example.coffeeshop.repository.CafeRepository}
+ * for streaming reads.
+ */
+@Repository
+public interface ReactiveCafeRepository extends ReactiveMongoRepository<Cafe, String> {
+
+    /**
+     * Cafes inside the area, answered by the 2dsphere index on location.
+     */
+    Flux<Cafe> findByLocationWithin(GeoJsonPolygon area);
+}
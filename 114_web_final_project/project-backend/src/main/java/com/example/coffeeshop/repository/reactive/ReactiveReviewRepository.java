@@ -0,0 +1,22 @@
+package com.example.coffeeshop.repository.reactive;
+
+import com.example.coffeeshop.model.Review;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking counterpart of {@link com.example.coffeeshop.repository.ReviewRepository}
+ * for streaming reads.
+ */
+@Repository
+public interface ReactiveReviewRepository extends ReactiveMongoRepository<Review, String> {
+
+    /**
+     * The cafe's reviews newest first, walking the cafe_created_id index. Images are left out
+     * as on the paged review endpoint.
+     */
+    @Query(value = "{ 'cafeId': ?0 }", fields = "{ 'imageUrls': 0 }", sort = "{ 'createdAt': -1, '_id': -1 }")
+    Flux<Review> findByCafeIdNewestFirst(String cafeId);
+}
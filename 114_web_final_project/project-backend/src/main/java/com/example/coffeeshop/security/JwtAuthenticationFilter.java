@@ -3,11 +3,16 @@ package com.example.coffeeshop.security;
 import com.example.coffeeshop.model.User;
 import com.example.coffeeshop.repository.UserRepository;
 import com.example.coffeeshop.service.AuthService;
+import com.example.coffeeshop.tracing.Tracer;
 import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -16,16 +21,28 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
     private final AuthService authService;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final Tracer tracer;
+    private final Timer validTokens;
+    private final Timer invalidTokens;
 
-    public JwtAuthenticationFilter(AuthService authService, UserRepository userRepository) {
+    public JwtAuthenticationFilter(AuthService authService, UserRepository userRepository,
+            PrincipalCache principalCache, MeterRegistry meterRegistry, Tracer tracer) {
         this.authService = authService;
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.tracer = tracer;
+        this.validTokens = verifyTimer("valid", meterRegistry);
+        this.invalidTokens = verifyTimer("invalid", meterRegistry);
     }
 
     @Override
@@ -37,13 +54,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             if (header != null && header.startsWith("Bearer ")) {
                 String token = header.substring(7);
                 try {
-                    Claims claims = authService.parseToken(token);
+                    Claims claims = verify(token);
                     String userId = claims.getSubject();
                     String role = (String) claims.get("role");
 
                     if (userId != null) {
-                        User user = userRepository.findById(userId)
-                                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+                        User user;
+                        try (Tracer.Scope span = tracer.startSpan("jwt.principal")) {
+                            user = principalCache.get(userId, id -> userRepository.findById(id).orElse(null));
+                        }
+                        if (user == null) {
+                            throw new UsernameNotFoundException("User not found");
+                        }
+                        // Prefer the stored role so a role change applies once the cached user is evicted,
+                        // without waiting for the token to expire.
+                        if (user.getRole() != null) {
+                            role = user.getRole().name();
+                        }
 
                         java.util.List<org.springframework.security.core.GrantedAuthority> authorities = java.util.List
                                 .of(new org.springframework.security.core.authority.SimpleGrantedAuthority(
@@ -56,14 +83,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         SecurityContextHolder.getContext().setAuthentication(authentication);
                     }
                 } catch (Exception e) {
-                    System.out.println("JWT Verification Failed: " + e.getMessage());
+                    log.debug("JWT verification failed: {}", e.getMessage());
                     // Do not throw; let the request proceed as anonymous
                 }
             }
         } catch (Exception e) {
-            System.err.println("Could not set user authentication in security context: " + e.getMessage());
+            log.error("Could not set user authentication in security context", e);
         }
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Parses the token and checks its signature and expiry, timing the check per outcome.
+     */
+    private Claims verify(String token) {
+        long start = System.nanoTime();
+        try (Tracer.Scope span = tracer.startSpan("jwt.verify")) {
+            Claims claims = authService.parseToken(token);
+            validTokens.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
+        } catch (RuntimeException ex) {
+            invalidTokens.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw ex;
+        }
+    }
+
+    private static Timer verifyTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("security.jwt.verify")
+                .description("JWT parsing and signature verification per request")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 }
\ No newline at end of file
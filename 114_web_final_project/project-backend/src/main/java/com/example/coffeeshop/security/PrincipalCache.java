@@ -0,0 +1,72 @@
+package com.example.coffeeshop.security;
+
+import com.example.coffeeshop.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded, expiring cache of authenticated users keyed by user id.
+ * Lets the JWT filter skip the user lookup in MongoDB on every request. Entries are dropped
+ * whenever a user document is saved or deleted through Spring Data, so role changes take
+ * effect on the next request; hit/miss counts are published as the "principals" cache metrics.
+ */
+@Component
+public class PrincipalCache extends AbstractMongoEventListener<User> {
+
+    private final Cache<String, User> cache;
+
+    public PrincipalCache(@Value("${security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${security.principal-cache.ttl:5m}") Duration ttl,
+                          MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    /**
+     * Returns the cached user, or loads it with {@code loader} on a miss.
+     * A null result from the loader is returned as is and not cached.
+     */
+    public User get(String userId, Function<String, User> loader) {
+        return cache.get(userId, loader);
+    }
+
+    /**
+     * Drops the cached user so the next request reloads it, e.g. after a role change.
+     */
+    public void invalidate(String userId) {
+        cache.invalidate(userId);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        invalidate(event.getSource().getId());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        // The source is the delete query; anything other than a single id clears the whole cache.
+        Document query = event.getSource();
+        Object id = query.get("_id");
+        if (id instanceof ObjectId || id instanceof String) {
+            invalidate(id.toString());
+        } else {
+            cache.invalidateAll();
+        }
+    }
+}
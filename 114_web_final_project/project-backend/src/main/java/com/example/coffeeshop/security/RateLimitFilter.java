@@ -0,0 +1,126 @@
+package com.example.coffeeshop.security;
+
+import com.example.coffeeshop.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles requests according to the rate-limit.policies, answering 429 with Retry-After once
+ * a client exceeds its policy. Runs right after {@link JwtAuthenticationFilter}, so signed-in
+ * users are limited per account and anonymous clients (e.g. login attempts) per IP address.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final List<CompiledPolicy> policies = new ArrayList<>();
+    private final RateLimiter limiter;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        long longestRefill = 1;
+        for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+            CompiledPolicy compiled = new CompiledPolicy(policy, meterRegistry);
+            policies.add(compiled);
+            longestRefill = Math.max(longestRefill, compiled.intervalNanos + compiled.toleranceNanos);
+        }
+        this.limiter = new RateLimiter(properties.getMaxBuckets(), Duration.ofNanos(longestRefill), meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        CompiledPolicy policy = enabled ? match(request) : null;
+        if (policy != null) {
+            long waitNanos = limiter.tryAcquire(policy.name + "|" + clientKey(request),
+                    policy.intervalNanos, policy.toleranceNanos);
+            if (waitNanos > 0) {
+                policy.rejected.increment();
+                long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+                response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+                response.getWriter().write("Too many requests, retry in " + retryAfterSeconds + " s");
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private CompiledPolicy match(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (CompiledPolicy policy : policies) {
+            if (policy.matches(request.getMethod(), path, pathMatcher)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    // The signed-in user's id, or the client address for anonymous requests.
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return "user:" + user.getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static final class CompiledPolicy {
+        private final String name;
+        private final List<String> methods;
+        private final List<String> paths;
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final Counter rejected;
+
+        private CompiledPolicy(RateLimitProperties.Policy policy, MeterRegistry meterRegistry) {
+            if (policy.getName() == null || policy.getLimit() < 1 || policy.getBurst() < 1
+                    || policy.getPeriod() == null || policy.getPeriod().isNegative() || policy.getPeriod().isZero()) {
+                throw new IllegalArgumentException("Rate limit policy " + policy.getName()
+                        + " needs a name, a positive limit and period, and a burst of at least 1");
+            }
+            this.name = policy.getName();
+            this.methods = policy.getMethods().stream().map(method -> method.toUpperCase(Locale.ROOT)).toList();
+            this.paths = List.copyOf(policy.getPaths());
+            this.intervalNanos = Math.max(1, policy.getPeriod().toNanos() / policy.getLimit());
+            this.toleranceNanos = intervalNanos * (policy.getBurst() - 1);
+            this.rejected = Counter.builder("security.rate-limit.rejected")
+                    .description("Requests answered with 429 by the rate limiter")
+                    .tag("policy", name)
+                    .register(meterRegistry);
+        }
+
+        private boolean matches(String method, String path, AntPathMatcher pathMatcher) {
+            if (!methods.isEmpty() && !methods.contains(method)) {
+                return false;
+            }
+            for (String pattern : paths) {
+                if (pathMatcher.match(pattern, path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
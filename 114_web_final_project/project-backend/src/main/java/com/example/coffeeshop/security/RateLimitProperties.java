@@ -0,0 +1,107 @@
+package com.example.coffeeshop.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limit settings (rate-limit.*). Policies are checked in order and the first one matching
+ * the request's method and path applies; requests matching none are not limited.
+ */
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    // Upper bound on buckets kept in memory; the least recently used go first.
+    private long maxBuckets = 100_000;
+    private List<Policy> policies = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    public void setMaxBuckets(long maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+
+    public List<Policy> getPolicies() {
+        return policies;
+    }
+
+    public void setPolicies(List<Policy> policies) {
+        this.policies = policies;
+    }
+
+    /**
+     * Allows {@code limit} requests per {@code period} for each signed-in user, or each client IP
+     * for anonymous requests, with bursts of up to {@code burst} requests.
+     */
+    public static class Policy {
+        private String name;
+        // HTTP methods the policy covers; empty covers all.
+        private List<String> methods = new ArrayList<>();
+        // Ant-style path patterns, e.g. /api/cafes/*/reviews
+        private List<String> paths = new ArrayList<>();
+        private int limit;
+        private Duration period = Duration.ofMinutes(1);
+        private int burst = 1;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public List<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public void setLimit(int limit) {
+            this.limit = limit;
+        }
+
+        public Duration getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(Duration period) {
+            this.period = period;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+}
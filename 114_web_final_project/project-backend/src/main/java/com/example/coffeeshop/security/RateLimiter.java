@@ -0,0 +1,56 @@
+package com.example.coffeeshop.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets implemented with the generic cell rate algorithm (GCRA).
+ * A bucket is a single long, the theoretical arrival time of the next request, updated with a
+ * compare-and-set, so concurrent requests never block one another. A bucket left idle for its
+ * full refill time is indistinguishable from a new one, so buckets expire after that long and
+ * memory stays bounded by the number of recently active clients.
+ */
+public class RateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(long maxBuckets, Duration refillTime, MeterRegistry meterRegistry) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(refillTime)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rate-limit-buckets");
+    }
+
+    /**
+     * Takes one request from the bucket. Returns 0 if the request is allowed, otherwise the
+     * nanoseconds until it would be.
+     *
+     * @param intervalNanos time for one request's worth of tokens to refill (period / limit)
+     * @param toleranceNanos how far ahead of the steady rate requests may run ((burst - 1) * interval)
+     */
+    public long tryAcquire(String key, long intervalNanos, long toleranceNanos) {
+        return tryAcquire(key, intervalNanos, toleranceNanos, System.nanoTime());
+    }
+
+    // Same as above at the given System.nanoTime() reading; lets tests control the clock.
+    long tryAcquire(String key, long intervalNanos, long toleranceNanos, long now) {
+        AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long wait = arrival - toleranceNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, Math.max(arrival, now) + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
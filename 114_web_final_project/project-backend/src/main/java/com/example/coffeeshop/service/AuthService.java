@@ -3,75 +3,99 @@ package com.example.coffeeshop.service;
 import com.example.coffeeshop.model.User;
 import com.example.coffeeshop.repository.UserRepository;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 import java.util.Date;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Handles authentication and user management.  
  * Uses a BCrypt password encoder to store secure password hashes and JSON Web Tokens
- * to issue stateless session tokens.
+ * to issue stateless session tokens. Hashing runs on the PasswordHashingService pool, so
+ * registration and login complete asynchronously.
  */
 @Service
+@Timed(value = "coffeeshop.service", histogram = true)
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final String jwtSecret;
+    private final PasswordHashingService passwordHashing;
+    // Runs the blocking work that follows a hash, so the hashing threads are only used for BCrypt.
+    private final Executor blockingExecutor;
+    // Built once from the configured secret; both are immutable and safe to share across threads.
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
     private final long jwtExpirationMs;
 
     public AuthService(UserRepository userRepository,
+                       PasswordHashingService passwordHashing,
+                       @Qualifier("applicationTaskExecutor") Executor blockingExecutor,
                        @Value("${jwt.secret}") String jwtSecret,
                        @Value("${jwt.expiration}") long jwtExpirationMs) {
         this.userRepository = userRepository;
-        this.passwordEncoder = new BCryptPasswordEncoder();
-        this.jwtSecret = jwtSecret;
+        this.passwordHashing = passwordHashing;
+        this.blockingExecutor = blockingExecutor;
+        // The secret is Base64-decoded exactly as the former string-key APIs did, so tokens
+        // issued before this change keep verifying.
+        this.signingKey = new SecretKeySpec(Decoders.BASE64.decode(jwtSecret), SignatureAlgorithm.HS256.getJcaName());
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
         this.jwtExpirationMs = jwtExpirationMs;
     }
 
     /**
      * Registers a new user with the MEMBER role by default.  
-     * Throws IllegalArgumentException if the email is already taken.
+     * The future fails with IllegalArgumentException if the email is already taken, or with
+     * RejectedExecutionException if the hashing pool is saturated.
      */
-    public User register(String email, String password) {
+    public CompletableFuture<User> register(String email, String password) {
         if (userRepository.findByEmail(email).isPresent()) {
-            throw new IllegalArgumentException("Email already in use");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Email already in use"));
         }
-        User user = new User();
-        user.setEmail(email);
-        user.setPassword(passwordEncoder.encode(password));
-        user.setRole(User.Role.MEMBER);
-        return userRepository.save(user);
+        return passwordHashing.encode(password).thenApplyAsync(hash -> {
+            User user = new User();
+            user.setEmail(email);
+            user.setPassword(hash);
+            user.setRole(User.Role.MEMBER);
+            return userRepository.save(user);
+        }, blockingExecutor);
     }
 
     /**
-     * Authenticates a user and returns a JWT token if successful.  
-     * Throws BadCredentialsException when the email or password is invalid.
+     * Authenticates a user and completes with a JWT token if successful.  
+     * The future fails with BadCredentialsException when the email or password is invalid, or
+     * with RejectedExecutionException if the hashing pool is saturated.
      */
-    public String login(String email, String password) {
+    public CompletableFuture<String> login(String email, String password) {
         Optional<User> optionalUser = userRepository.findByEmail(email);
         if (optionalUser.isEmpty()) {
-            throw new BadCredentialsException("Invalid email or password");
+            return CompletableFuture.failedFuture(new BadCredentialsException("Invalid email or password"));
         }
         User user = optionalUser.get();
-        if (!passwordEncoder.matches(password, user.getPassword())) {
-            throw new BadCredentialsException("Invalid email or password");
-        }
-        return generateToken(user);
+        return passwordHashing.matches(password, user.getPassword()).thenApply(matches -> {
+            if (!matches) {
+                throw new BadCredentialsException("Invalid email or password");
+            }
+            return generateToken(user);
+        });
     }
 
     /**
      * Generates a JWT token containing the user's id and role.  
      * The token is signed with the configured secret and expires after the configured period.
      */
-    private String generateToken(User user) {
+    String generateToken(User user) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + jwtExpirationMs);
         return Jwts.builder()
@@ -79,7 +103,7 @@ public class AuthService {
                 .claim("role", user.getRole().name())
                 .setIssuedAt(now)
                 .setExpiration(expiry)
-                .signWith(SignatureAlgorithm.HS256, jwtSecret)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -88,9 +112,6 @@ public class AuthService {
      * Throws an exception if the token is invalid or expired.
      */
     public Claims parseToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody();
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 }
\ No newline at end of file
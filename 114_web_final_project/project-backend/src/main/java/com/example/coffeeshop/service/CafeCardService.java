@@ -0,0 +1,291 @@
+package com.example.coffeeshop.service;
+
+import com.example.coffeeshop.model.Cafe;
+import com.example.coffeeshop.model.CafeCard;
+import com.example.coffeeshop.model.CafeRatingSummary;
+import com.example.coffeeshop.model.Photo;
+import com.example.coffeeshop.model.Tag;
+import com.example.coffeeshop.model.TagWeight;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.annotation.Timed;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the cafe_cards read model behind the listing page.
+ * Cards are updated in place by the services that write their sources, so the listing is served
+ * by one indexed query. At startup only cards that are missing or no longer match their cafe are rebuilt.
+ */
+@Service
+@Timed(value = "coffeeshop.service", histogram = true)
+public class CafeCardService {
+
+    private static final Logger log = LoggerFactory.getLogger(CafeCardService.class);
+
+    // Cafes rebuilt per bulk write at startup.
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final CatalogRevisionService catalogRevision;
+
+    public CafeCardService(MongoTemplate mongoTemplate, CatalogRevisionService catalogRevision) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalogRevision = catalogRevision;
+    }
+
+    /**
+     * Rebuilds the cards that are missing or whose copied cafe fields (name, address, position,
+     * rating, tags) no longer match their cafe, picking up changes made while the application
+     * was down and the cafes the DataSeeder imported or re-imported, which runs before this. Cafes and cards are both read in id order and compared as
+     * they stream past, so only one batch of each is held in memory.
+     * A card updated after it was read here is left alone, so live updates are never replaced by
+     * an older snapshot; if it is still outdated it is rebuilt on the next start.
+     * Runs after ReviewService has backfilled the rating summaries.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOutdated() {
+        Map<String, Long> tagWeights = null;
+        long rebuilt = 0;
+        List<Cafe> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+        // Revision of each batched cafe's card as read, or null if it has none.
+        Map<String, Long> revisions = new HashMap<>();
+        Query byId = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(REBUILD_BATCH_SIZE);
+        try (Stream<Cafe> cafeStream = mongoTemplate.stream(byId, Cafe.class);
+             Stream<CafeCard> cardStream = mongoTemplate.stream(byId, CafeCard.class)) {
+            Iterator<Cafe> cafes = cafeStream.iterator();
+            Iterator<CafeCard> cards = cardStream.iterator();
+            CafeCard card = cards.hasNext() ? cards.next() : null;
+            while (cafes.hasNext()) {
+                Cafe cafe = cafes.next();
+                // Skip cards of deleted cafes; ids are ObjectIds, whose hex strings sort like them.
+                while (card != null && card.getId().compareTo(cafe.getId()) < 0) {
+                    card = cards.hasNext() ? cards.next() : null;
+                }
+                CafeCard current = card != null && card.getId().equals(cafe.getId()) ? card : null;
+                if (current != null && !isOutdated(current, cafe)) {
+                    continue;
+                }
+                batch.add(cafe);
+                revisions.put(cafe.getId(), current == null ? null : current.getRevision());
+                if (batch.size() == REBUILD_BATCH_SIZE) {
+                    if (tagWeights == null) {
+                        tagWeights = loadTagWeights();
+                    }
+                    rebuilt += rebuildCards(batch, revisions, tagWeights);
+                    batch.clear();
+                    revisions.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            rebuilt += rebuildCards(batch, revisions, tagWeights == null ? loadTagWeights() : tagWeights);
+        }
+        if (rebuilt > 0) {
+            catalogRevision.bump();
+        }
+        log.info("Rebuilt {} outdated cafe cards", rebuilt);
+    }
+
+    /**
+     * Returns one keyset page of cards, in the same orders and with the same cursors as
+     * {@link CafeService#getCafesPage}.
+     */
+    public List<CafeCard> getCardsPage(String after, int limit, String sort) {
+        return mongoTemplate.find(CafeService.pageQuery(after, limit, sort), CafeCard.class);
+    }
+
+    public String cursorOf(CafeCard card, String sort) {
+        return CafeService.cursor(sort, card.getRatingSummary().getAverage(), card.getId());
+    }
+
+    /**
+     * Writes the full card of a newly created or replaced cafe.
+     */
+    public void upsertCard(Cafe cafe) {
+        Map<String, Long> weights = new HashMap<>();
+        for (Tag tag : mongoTemplate.find(Query.query(Criteria.where("name").in(cafe.getTags())), Tag.class)) {
+            weights.put(tag.getName(), (long) tag.getWeight());
+        }
+        mongoTemplate.save(toCard(cafe, topPhotoUrl(cafe.getId()), weights));
+    }
+
+    /**
+     * Copies the cafe's current rating summary onto its card.
+     */
+    public void updateRating(String cafeId, CafeRatingSummary summary) {
+        // Concurrent reviews may arrive out of order; a summary never replaces one with a higher count.
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(cafeId).and("ratingSummary.count").lt(summary.getCount())),
+                Update.update("ratingSummary", summary).inc("revision", 1), CafeCard.class);
+    }
+
+    /**
+     * Adds a tag to the cafe's card with the tag's stored weight, unless the card already has it.
+     * Call this before the tag's weight is incremented for the same use, so the increment
+     * reaches the new entry too.
+     */
+    public void addTag(String cafeId, String tagName) {
+        Tag tag = mongoTemplate.findOne(Query.query(Criteria.where("name").is(tagName)), Tag.class);
+        long weight = tag == null ? 0 : tag.getWeight();
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(cafeId).and("tagWeights.name").ne(tagName)),
+                new Update().push("tagWeights", new TagWeight(tagName, weight)).inc("revision", 1),
+                CafeCard.class);
+    }
+
+    /**
+     * Adds {@code delta} to the tag's weight on every card carrying it.
+     */
+    public void incrementTagWeight(String tagName, long delta) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("tagWeights.name").is(tagName)),
+                new Update().inc("tagWeights.$.weight", delta).inc("revision", 1), CafeCard.class);
+        catalogRevision.bump();
+    }
+
+    /**
+     * Sets the tag's weight on every card carrying it, e.g. after duplicate tags were merged.
+     */
+    public void setTagWeight(String tagName, long weight) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("tagWeights.name").is(tagName)),
+                new Update().set("tagWeights.$.weight", weight).inc("revision", 1), CafeCard.class);
+        catalogRevision.bump();
+    }
+
+    /**
+     * Re-reads the cafe's most voted photo onto its card, e.g. after a vote or upload.
+     */
+    public void updateTopPhoto(String cafeId) {
+        String url = topPhotoUrl(cafeId);
+        if (url != null) {
+            updateTopPhoto(cafeId, url);
+        }
+    }
+
+    /**
+     * Sets the card's image to the given most voted photo.
+     */
+    public void updateTopPhoto(String cafeId, String url) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(cafeId)),
+                Update.update("imageUrl", url).inc("revision", 1), CafeCard.class);
+        catalogRevision.bump();
+    }
+
+    // Inserts missing cards and replaces outdated ones still at the revision they were read at.
+    // A card created or updated meanwhile is skipped: the insert fails on the duplicate id and
+    // the replace matches nothing.
+    private long rebuildCards(List<Cafe> cafes, Map<String, Long> revisions, Map<String, Long> tagWeights) {
+        Map<String, String> topPhotos = topPhotoUrls(cafes.stream().map(Cafe::getId).toList());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CafeCard.class);
+        for (Cafe cafe : cafes) {
+            CafeCard card = toCard(cafe, topPhotos.get(cafe.getId()), tagWeights);
+            Long revision = revisions.get(cafe.getId());
+            if (revision == null) {
+                bulk.insert(card);
+            } else {
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(cafe.getId()).and("revision").is(revision)), card);
+            }
+        }
+        BulkWriteResult result;
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException ex) {
+            for (BulkWriteError error : ex.getErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    throw ex;
+                }
+            }
+            result = ex.getResult();
+        }
+        return result.getInsertedCount() + result.getModifiedCount();
+    }
+
+    private Map<String, Long> loadTagWeights() {
+        Map<String, Long> tagWeights = new HashMap<>();
+        for (Tag tag : mongoTemplate.findAll(Tag.class)) {
+            tagWeights.put(tag.getName(), (long) tag.getWeight());
+        }
+        return tagWeights;
+    }
+
+    // Whether the card differs from the cafe in a field it copies. Tag weights and the top photo
+    // have other sources and are kept current by the live updates.
+    private static boolean isOutdated(CafeCard card, Cafe cafe) {
+        Set<String> cardTags = new HashSet<>();
+        for (TagWeight tag : card.getTagWeights()) {
+            cardTags.add(tag.getName());
+        }
+        return !Objects.equals(card.getName(), cafe.getName())
+                || !Objects.equals(card.getAddress(), cafe.getAddress())
+                || card.getLatitude() != cafe.getLatitude()
+                || card.getLongitude() != cafe.getLongitude()
+                || card.getRatingSummary().getCount() != cafe.getRatingSummary().getCount()
+                || card.getRatingSummary().getSum() != cafe.getRatingSummary().getSum()
+                || !cardTags.equals(new HashSet<>(cafe.getTags()))
+                || (card.getImageUrl() == null && !cafe.getImageUrls().isEmpty());
+    }
+
+    private CafeCard toCard(Cafe cafe, String topPhotoUrl, Map<String, Long> tagWeights) {
+        CafeCard card = new CafeCard();
+        card.setId(cafe.getId());
+        card.setName(cafe.getName());
+        card.setAddress(cafe.getAddress());
+        card.setLatitude(cafe.getLatitude());
+        card.setLongitude(cafe.getLongitude());
+        card.setRatingSummary(cafe.getRatingSummary());
+        if (topPhotoUrl != null) {
+            card.setImageUrl(topPhotoUrl);
+        } else if (!cafe.getImageUrls().isEmpty()) {
+            card.setImageUrl(cafe.getImageUrls().get(0));
+        }
+        for (String tag : cafe.getTags()) {
+            card.getTagWeights().add(new TagWeight(tag, tagWeights.getOrDefault(tag, 0L)));
+        }
+        return card;
+    }
+
+    private String topPhotoUrl(String cafeId) {
+        Query top = Query.query(Criteria.where("cafeId").is(cafeId))
+                .with(Sort.by(Sort.Order.desc("votes"), Sort.Order.asc("_id")))
+                .limit(1);
+        Photo photo = mongoTemplate.findOne(top, Photo.class);
+        return photo == null ? null : photo.getUrl();
+    }
+
+    // Most voted photo URL per cafe, for a batch of cafes in one aggregation.
+    private Map<String, String> topPhotoUrls(Collection<String> cafeIds) {
+        Aggregation top = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("cafeId").in(cafeIds)),
+                Aggregation.sort(Sort.by(Sort.Order.desc("votes"), Sort.Order.asc("_id"))),
+                Aggregation.group("cafeId").first("url").as("url"));
+        Map<String, String> urls = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(top, Photo.class, Document.class)) {
+            urls.put(row.getString("_id"), row.getString("url"));
+        }
+        return urls;
+    }
+}
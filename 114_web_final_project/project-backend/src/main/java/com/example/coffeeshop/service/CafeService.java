@@ -1,29 +1,399 @@
 package com.example.coffeeshop.service;
 
+import com.example.coffeeshop.dto.CafeSuggestion;
+import com.example.coffeeshop.index.GeoGridIndex;
+import com.example.coffeeshop.index.PrefixIndex;
+import com.example.coffeeshop.index.TagBitmapIndex;
 import com.example.coffeeshop.model.Cafe;
+import com.example.coffeeshop.model.CafeRatingSummary;
 import com.example.coffeeshop.repository.CafeRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "coffeeshop.service", histogram = true)
 public class CafeService {
 
+    private static final Logger log = LoggerFactory.getLogger(CafeService.class);
+
+    /** Upper bound for a single page so a client cannot ask for the whole catalogue at once. */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /** Largest radius accepted by {@link #findCafesNear}, in meters. */
+    public static final double MAX_NEAR_RADIUS_METERS = 50_000;
+
+    // Number of documents fetched from the server per cursor round trip while streaming.
+    private static final int STREAM_BATCH_SIZE = 256;
+
+    // Grid cells of about 1 km keep a city-scale radius query down to a handful of cells.
+    private static final double GEO_CELL_DEGREES = 0.01;
+
+    // Longer query words are looked up by this prefix and verified on the candidates.
+    private static final int AUTOCOMPLETE_PREFIX_LENGTH = 12;
+
+    // Largest tag match set sent to MongoDB as an _id list; bigger ones use the multikey tags index.
+    private static final int MAX_ID_FILTER = 1000;
+
     private final CafeRepository cafeRepository;
+    private final MongoTemplate mongoTemplate;
+    private final CafeCardService cafeCardService;
+    private final CatalogRevisionService catalogRevision;
+    private final GeoGridIndex geoIndex;
+    private final TagBitmapIndex tagIndex;
+    private final PrefixIndex<CafeSuggestion> nameIndex = new PrefixIndex<>(AUTOCOMPLETE_PREFIX_LENGTH);
+    private final Cache<String, Cafe> detailCache;
+    // Ids written through onCafeChanged while warmUp loads its snapshot; their entries are newer
+    // than the snapshot's. Null once the snapshot has been loaded.
+    private volatile Map<String, Boolean> changedDuringWarmUp = new ConcurrentHashMap<>();
+    // Radius and tag queries fall back to Mongo until the in-memory indexes have been fully loaded.
+    private volatile boolean geoIndexReady;
+    private volatile boolean tagIndexReady;
 
-    public CafeService(CafeRepository cafeRepository) {
+    public CafeService(CafeRepository cafeRepository,
+                       MongoTemplate mongoTemplate,
+                       CafeCardService cafeCardService,
+                       CatalogRevisionService catalogRevision,
+                       @Value("${cafes.geo.memory-index.enabled:true}") boolean geoIndexEnabled,
+                       @Value("${cafes.tags.memory-index.enabled:true}") boolean tagIndexEnabled,
+                       @Value("${cafes.detail-cache.max-size:10000}") long detailCacheSize,
+                       @Value("${cafes.detail-cache.ttl:10m}") Duration detailCacheTtl,
+                       MeterRegistry meterRegistry) {
         this.cafeRepository = cafeRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.cafeCardService = cafeCardService;
+        this.catalogRevision = catalogRevision;
+        this.geoIndex = geoIndexEnabled ? new GeoGridIndex(GEO_CELL_DEGREES) : null;
+        this.tagIndex = tagIndexEnabled ? new TagBitmapIndex() : null;
+        // Size-bounded with W-TinyLFU eviction, so frequently viewed cafes stay resident. The TTL
+        // bounds staleness for writes made outside this service, e.g. by another instance.
+        this.detailCache = Caffeine.newBuilder()
+                .maximumSize(detailCacheSize)
+                .expireAfterWrite(detailCacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, detailCache, "cafes");
+    }
+
+    /**
+     * Loads every cafe into the in-memory spatial, tag and autocomplete indexes once the
+     * application has started (after the DataSeeder has run), and backfills the GeoJSON location of cafes stored
+     * before the field existed so the 2dsphere index covers them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        // Computed server side in a single pipeline update, so no cafe has to be loaded for it.
+        long backfilled = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("location").exists(false)),
+                AggregationUpdate.update().set("location").toValue(new Document("type", "Point")
+                        .append("coordinates", List.of("$longitude", "$latitude"))),
+                Cafe.class).getModifiedCount();
+        if (backfilled > 0) {
+            log.info("Backfilled GeoJSON location for {} cafes", backfilled);
+        }
+        Map<String, Boolean> changed = changedDuringWarmUp;
+        // Under the id's entry lock, so a live write for the same id is either applied after
+        // this or makes it skip the older snapshot copy.
+        streamCafes(cafe -> changed.compute(cafe.getId(), (id, seen) -> {
+            if (seen == null) {
+                index(cafe);
+            }
+            return seen;
+        }));
+        changedDuringWarmUp = null;
+        log.info("Autocomplete index loaded with {} cafes", nameIndex.size());
+        if (geoIndex != null) {
+            geoIndexReady = true;
+            log.info("Spatial index loaded with {} cafes", geoIndex.size());
+        }
+        if (tagIndex != null) {
+            tagIndexReady = true;
+            log.info("Tag index loaded with {} cafes", tagIndex.size());
+        }
+    }
+
+    /**
+     * Returns one page of cafes starting strictly after the given cursor.
+     * With sort "rating" cafes are ordered by average rating (best first), otherwise by id.
+     * The cursor comes from {@link #cursorOf} for the last cafe of the previous page; pass null
+     * for the first page. Non-empty {@code tags} restrict the page to cafes carrying all of them
+     * (mode "all", the default) or any of them (mode "any").
+     * Throws IllegalArgumentException for an unknown sort or mode, or an invalid cursor.
+     */
+    public List<Cafe> getCafesPage(String after, int limit, String sort, List<String> tags, String mode) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        if (!tags.isEmpty() && tagIndexReady && !isRatingSort(sort)) {
+            // Ids order the same as the listing, so the page itself is picked from the bitmap
+            // index and Mongo only fetches those documents by primary key.
+            String afterId = after != null && !after.isBlank() ? parseId(after).toHexString() : null;
+            List<String> pageIds = tagIndex.page(tags, isMatchAll(mode), afterId, size);
+            if (pageIds.isEmpty()) {
+                return List.of();
+            }
+            Query query = new Query(Criteria.where("_id").in(pageIds)).with(Sort.by(Sort.Direction.ASC, "_id"));
+            return mongoTemplate.find(query, Cafe.class);
+        }
+
+        Query query = pageQuery(after, size, sort);
+        if (!tags.isEmpty()) {
+            query.addCriteria(tagCriteria(tags, isMatchAll(mode)));
+        }
+        return mongoTemplate.find(query, Cafe.class);
+    }
+
+    // A small match set from the bitmap index is sent as an _id list. A large one, or any before the
+    // index has loaded, is left to the multikey index on tags.
+    private Criteria tagCriteria(List<String> tags, boolean matchAll) {
+        if (tagIndexReady) {
+            List<String> ids = tagIndex.matching(tags, matchAll, MAX_ID_FILTER);
+            if (ids != null) {
+                return Criteria.where("_id").in(ids);
+            }
+        }
+        return matchAll ? Criteria.where("tags").all(tags) : Criteria.where("tags").in(tags);
+    }
+
+    private boolean isMatchAll(String mode) {
+        if (mode == null || mode.isBlank() || mode.equals("all")) {
+            return true;
+        }
+        if (mode.equals("any")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown tag mode: " + mode);
+    }
+
+    /**
+     * Returns the cursor that continues a listing in the given sort order after this cafe.
+     */
+    public String cursorOf(Cafe cafe, String sort) {
+        return cursor(sort, cafe.getRatingSummary().getAverage(), cafe.getId());
+    }
+
+    // Keyset paging shared with the cafe card listing, whose documents carry the same
+    // _id and ratingSummary.average fields.
+    static Query pageQuery(String after, int limit, String sort) {
+        boolean byRating = isRatingSort(sort);
+        Query query = new Query()
+                .with(byRating
+                        ? Sort.by(Sort.Order.desc("ratingSummary.average"), Sort.Order.asc("_id"))
+                        : Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        if (after != null && !after.isBlank()) {
+            query.addCriteria(byRating ? afterRatingCursor(after) : Criteria.where("_id").gt(parseId(after)));
+        }
+        return query;
+    }
+
+    static String cursor(String sort, double average, String id) {
+        return isRatingSort(sort) ? average + "_" + id : id;
     }
 
-    public List<Cafe> getAllCafes() {
-        return cafeRepository.findAll();
+    private static boolean isRatingSort(String sort) {
+        if (sort == null || sort.isBlank() || sort.equals("id")) {
+            return false;
+        }
+        if (sort.equals("rating")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Unknown sort: " + sort);
+    }
+
+    // Cafes after (average, id) in the order average desc, id asc.
+    private static Criteria afterRatingCursor(String cursor) {
+        int separator = cursor.indexOf('_');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        double average;
+        try {
+            average = Double.parseDouble(cursor.substring(0, separator));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        ObjectId id = parseId(cursor.substring(separator + 1));
+        return new Criteria().orOperator(
+                Criteria.where("ratingSummary.average").lt(average),
+                Criteria.where("ratingSummary.average").is(average).and("_id").gt(id));
+    }
+
+    private static ObjectId parseId(String id) {
+        if (!ObjectId.isValid(id)) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return new ObjectId(id);
+    }
+
+    /**
+     * Hands every cafe to the consumer as it comes off a Mongo cursor.
+     * Only one cursor batch is held in memory at a time, regardless of the collection size.
+     */
+    public void streamCafes(Consumer<Cafe> consumer) {
+        Query query = new Query().cursorBatchSize(STREAM_BATCH_SIZE);
+        try (Stream<Cafe> cafes = mongoTemplate.stream(query, Cafe.class)) {
+            cafes.forEach(consumer);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} cafes within {@code radiusMeters} of the given point, nearest first.
+     * Served from the in-memory spatial index when it is enabled and loaded, which yields the ids;
+     * the cafes come from the detail cache, with misses loaded in one query. Otherwise answered by
+     * a $nearSphere query on the 2dsphere index.
+     * Throws IllegalArgumentException for out-of-range coordinates or radius.
+     */
+    public List<Cafe> findCafesNear(double latitude, double longitude, double radiusMeters, int limit) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Invalid coordinates");
+        }
+        if (radiusMeters <= 0 || radiusMeters > MAX_NEAR_RADIUS_METERS) {
+            throw new IllegalArgumentException("Radius must be between 0 and " + (long) MAX_NEAR_RADIUS_METERS + " meters");
+        }
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        if (geoIndexReady) {
+            List<String> ids = geoIndex.near(latitude, longitude, radiusMeters, size).stream()
+                    .map(GeoGridIndex.Hit::getId)
+                    .toList();
+            return getCafesByIds(ids);
+        }
+        Query query = new Query(Criteria.where("location")
+                .nearSphere(new GeoJsonPoint(longitude, latitude))
+                .maxDistance(radiusMeters))
+                .limit(size);
+        return mongoTemplate.find(query, Cafe.class);
+    }
+
+    /**
+     * Full-text search over name, description, address and tags, best matches first.
+     * Throws IllegalArgumentException for blank text.
+     */
+    public List<Cafe> searchCafes(String text, int limit) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Search text is required");
+        }
+        Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text))
+                .sortByScore()
+                .limit(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        return mongoTemplate.find(query, Cafe.class);
+    }
+
+    /**
+     * Suggests cafes whose name has words starting with those typed so far, served from memory.
+     * Cafes with more reviews rank first among equally good matches.
+     */
+    public List<CafeSuggestion> autocomplete(String prefix, int limit) {
+        return nameIndex.suggest(prefix, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
     }
 
     public Cafe createCafe(Cafe cafe) {
-        return cafeRepository.save(cafe);
+        // A new cafe starts without reviews and outside the OSM import, whatever the client sent.
+        cafe.setId(null);
+        cafe.setOsmId(null);
+        cafe.setRatingSummary(new CafeRatingSummary());
+        Cafe saved = cafeRepository.save(cafe);
+        cafeCardService.upsertCard(saved);
+        onCafeChanged(saved);
+        return saved;
+    }
+
+    /**
+     * Refreshes the in-memory views of a cafe after it has been written.
+     * Other services that modify cafe documents must call this with the stored state.
+     */
+    public void onCafeChanged(Cafe cafe) {
+        catalogRevision.bump();
+        detailCache.invalidate(cafe.getId());
+        Map<String, Boolean> changed = changedDuringWarmUp;
+        if (changed == null) {
+            index(cafe);
+            return;
+        }
+        changed.compute(cafe.getId(), (id, seen) -> {
+            index(cafe);
+            return Boolean.TRUE;
+        });
+    }
+
+    private void index(Cafe cafe) {
+        if (geoIndex != null) {
+            geoIndex.put(cafe.getId(), cafe.getLatitude(), cafe.getLongitude());
+        }
+        if (tagIndex != null) {
+            tagIndex.put(cafe.getId(), cafe.getTags());
+        }
+        nameIndex.put(cafe.getId(), cafe.getName(), cafe.getRatingSummary().getCount(),
+                new CafeSuggestion(cafe.getId(), cafe.getName(), cafe.getAddress()));
+    }
+
+    /**
+     * Entity tag of a single cafe, derived from its version.
+     */
+    public String eTagOf(Cafe cafe) {
+        return "cafe-" + cafe.getId() + "-" + (cafe.getVersion() == null ? 0 : cafe.getVersion());
+    }
+
+    /**
+     * Entity tag shared by all listings, built from the persisted catalogue revision. Every
+     * instance computes the same tag, and it can be checked before any cafe is loaded.
+     */
+    public String catalogETag() {
+        return "cafes-" + catalogRevision.current();
+    }
+
+    /**
+     * Returns the cafes with the given ids in the same order, skipping ids that no longer exist.
+     * Served from the detail cache; all misses are loaded from MongoDB in one query.
+     */
+    public List<Cafe> getCafesByIds(List<String> ids) {
+        Map<String, Cafe> cafes = detailCache.getAll(ids, missing -> {
+            Map<String, Cafe> loaded = new HashMap<>();
+            for (Cafe cafe : cafeRepository.findAllById(List.copyOf(missing))) {
+                loaded.put(cafe.getId(), cafe);
+            }
+            return loaded;
+        });
+        List<Cafe> ordered = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Cafe cafe = cafes.get(id);
+            if (cafe != null) {
+                ordered.add(cafe);
+            }
+        }
+        return ordered;
     }
 
+    /**
+     * Returns the cafe with the given id, or null if there is none.
+     * Served from the detail cache; misses are loaded from MongoDB and unknown ids are not cached.
+     */
     public Cafe getCafeById(String id) {
-        return cafeRepository.findById(id).orElse(null);
+        return detailCache.get(id, key -> cafeRepository.findById(key).orElse(null));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.example.coffeeshop.service;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Revision of the cafe catalogue, stored in MongoDB so every instance sees the same value.
+ * Every write that changes a listing (cafes, cards, the seeder) bumps it, and listing ETags
+ * are built from it. Edits made directly in the database must bump it as well:
+ * {@code db.catalog_revisions.updateOne({_id: "cafes"}, {$inc: {revision: 1}})}.
+ */
+@Service
+public class CatalogRevisionService {
+
+    private static final String COLLECTION = "catalog_revisions";
+    private static final String CATALOG_ID = "cafes";
+
+    private final MongoTemplate mongoTemplate;
+
+    public CatalogRevisionService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Records that the catalogue changed.
+     */
+    public void bump() {
+        // The epoch is set once, so revisions of a recreated database do not repeat old tags.
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(CATALOG_ID)),
+                new Update().inc("revision", 1).setOnInsert("epoch", new ObjectId().toHexString()),
+                COLLECTION);
+    }
+
+    /**
+     * Returns the current revision as an opaque string; one primary key lookup.
+     */
+    public String current() {
+        Document revision = mongoTemplate.findById(CATALOG_ID, Document.class, COLLECTION);
+        if (revision == null) {
+            return "0";
+        }
+        return revision.getString("epoch") + "-" + ((Number) revision.get("revision")).longValue();
+    }
+}
@@ -2,56 +2,145 @@ package com.example.coffeeshop.service;
 
 import com.example.coffeeshop.model.Cafe;
 import com.example.coffeeshop.repository.CafeRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Automatically seeds the database with public data from OpenStreetMap
  * if the database is empty on startup.
+ * By default cafes are fetched from the Overpass API; setting seeder.osm-file imports a local
+ * Overpass JSON dump (optionally gzip-compressed) instead, without any network access.
+ * Either way the response is parsed as a stream and written in batches.
+ * With seeder.mode=reimport the source is read on every startup and only new or changed cafes
+ * are written, as bulk upserts keyed by OSM id spread over several worker threads.
  */
 @Service
 public class DataSeeder implements CommandLineRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(DataSeeder.class);
+
+    /** Name of an optional ThreadFactory bean for the re-import workers. */
+    public static final String WORKER_THREAD_FACTORY = "seederWorkerThreadFactory";
+
     private final CafeRepository cafeRepository;
+    private final MongoTemplate mongoTemplate;
+    private final CatalogRevisionService catalogRevision;
     private final ObjectMapper objectMapper;
+    private final String osmFile;
+    private final int batchSize;
+    private final boolean reimport;
+    private final int workers;
+    private final ThreadFactory workerThreads;
 
     // Bounding Box for Taipei: S,W,N,E
     private static final String TAIPEI_BBOX = "25.00,121.45,25.10,121.60";
 
-    public DataSeeder(CafeRepository cafeRepository, ObjectMapper objectMapper) {
+    public DataSeeder(CafeRepository cafeRepository, MongoTemplate mongoTemplate,
+                      CatalogRevisionService catalogRevision, ObjectMapper objectMapper,
+                      @Value("${seeder.osm-file:}") String osmFile,
+                      @Value("${seeder.batch-size:1000}") int batchSize,
+                      @Value("${seeder.mode:initial}") String mode,
+                      @Value("${seeder.workers:0}") int workers,
+                      @Qualifier(WORKER_THREAD_FACTORY) ObjectProvider<ThreadFactory> workerThreads) {
         this.cafeRepository = cafeRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.catalogRevision = catalogRevision;
         this.objectMapper = objectMapper;
+        this.osmFile = osmFile;
+        this.batchSize = Math.max(1, batchSize);
+        this.reimport = "reimport".equalsIgnoreCase(mode);
+        this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        // Virtual threads in the jdk21 build with spring.threads.virtual.enabled, see VirtualThreadConfig.
+        this.workerThreads = workerThreads.getIfAvailable(Executors::defaultThreadFactory);
     }
 
     @Override
     public void run(String... args) throws Exception {
+        if (reimport) {
+            try {
+                log.info("Re-importing cafes from {}", sourceName());
+                reimportChanged();
+            } catch (Exception e) {
+                log.error("Failed to re-import data", e);
+            }
+            return;
+        }
+
         if (cafeRepository.count() > 0) {
-            System.out.println("✅ Database already has data. Skipping import.");
+            log.info("Database already has data, skipping import");
             return;
         }
 
-        System.out.println("🌍 Database empty. Fetching cafes from OpenStreetMap (Overpass API)...");
         try {
-            importFromOSM();
+            log.info("Database empty, importing cafes from {}", sourceName());
+            long start = System.currentTimeMillis();
+            int count = readSource(batch -> cafeRepository.insert(batch));
+            catalogRevision.bump();
+            log.info("Imported {} cafes in {} ms", count, System.currentTimeMillis() - start);
         } catch (Exception e) {
-            System.err.println("❌ Failed to import data: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Failed to import data", e);
         }
     }
 
-    private void importFromOSM() throws Exception {
+    private String sourceName() {
+        return hasOsmFile() ? osmFile : "OpenStreetMap (Overpass API)";
+    }
+
+    private boolean hasOsmFile() {
+        return osmFile != null && !osmFile.isBlank();
+    }
+
+    /**
+     * Reads cafes from the configured source and hands them to the sink in batches.
+     * Returns the number of cafes read.
+     */
+    private int readSource(Consumer<List<Cafe>> sink) throws Exception {
+        return hasOsmFile() ? importFromFile(Path.of(osmFile), sink) : importFromOSM(sink);
+    }
+
+    private int importFromOSM(Consumer<List<Cafe>> sink) throws Exception {
         String query = "[out:json][timeout:25];" +
                 "(" +
                 "  node[\"amenity\"=\"cafe\"](" + TAIPEI_BBOX + ");" +
@@ -73,68 +162,242 @@ public class DataSeeder implements CommandLineRunner {
             throw new RuntimeException("Overpass API returned " + conn.getResponseCode());
         }
 
-        InputStream inputStream = conn.getInputStream();
-        JsonNode root = objectMapper.readTree(inputStream);
-        JsonNode elements = root.path("elements");
+        try (InputStream inputStream = conn.getInputStream()) {
+            return importElements(inputStream, sink);
+        }
+    }
 
-        int count = 0;
-        for (JsonNode node : elements) {
-            if (node.has("tags") && node.get("tags").has("name")) {
-                JsonNode tags = node.get("tags");
-                String name = tags.get("name").asText();
+    private int importFromFile(Path path, Consumer<List<Cafe>> sink) throws IOException {
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path))) {
+            InputStream inputStream = path.getFileName().toString().endsWith(".gz")
+                    ? new GZIPInputStream(file)
+                    : file;
+            return importElements(inputStream, sink);
+        }
+    }
 
-                // Skip basic duplicates or bad data
-                if (name.isEmpty())
+    /**
+     * Reads an Overpass JSON document element by element and passes the resulting cafes to the
+     * sink in batches of seeder.batch-size. Each batch is a new list the sink may keep.
+     * Only one element and the current batch are held in memory by the reader.
+     */
+    private int importElements(InputStream inputStream, Consumer<List<Cafe>> sink) throws IOException {
+        int count = 0;
+        List<Cafe> batch = new ArrayList<>(batchSize);
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected an Overpass JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (!"elements".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
                     continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    Cafe cafe = toCafe(objectMapper.readTree(parser));
+                    if (cafe == null) {
+                        continue;
+                    }
+                    batch.add(cafe);
+                    count++;
+                    if (batch.size() >= batchSize) {
+                        sink.accept(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+        return count;
+    }
 
-                // Extract lat/lon. For ways, center logic is complex, so we skip exact center
-                // calculation for now or just take what we have.
-                // Overpass "out skel qt" for ways gives nodes but not center. "out center" is
-                // better for ways.
-                // Let's just use "node" type for simplicity, or if type is "node".
-                // If it's a way, without center in output, we don't have lat/lon on the element
-                // itself usually in this querying mode.
-                // We'll filter for type="node" OR elements that have lat/lon.
-                if (!node.has("lat") || !node.has("lon"))
-                    continue;
+    /**
+     * Reads the source again and writes only what differs from the stored cafes.
+     * Batches are diffed and upserted by a pool of seeder.workers threads while the reader keeps
+     * parsing; when every worker is busy the reader runs the batch itself, which bounds memory.
+     */
+    private void reimportChanged() throws Exception {
+        long start = System.currentTimeMillis();
+        ReimportStats stats = new ReimportStats(loadUnlinkedCafes());
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers), workerThreads, new ThreadPoolExecutor.CallerRunsPolicy());
+        int read;
+        try {
+            read = readSource(batch -> pool.execute(() -> {
+                try {
+                    upsertChanged(batch, stats);
+                } catch (RuntimeException e) {
+                    stats.failed.addAndGet(batch.size());
+                    log.error("Failed to upsert a batch of {} cafes", batch.size(), e);
+                }
+            }));
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.HOURS);
+        }
+        if (stats.inserted.get() + stats.updated.get() > 0) {
+            catalogRevision.bump();
+        }
+        log.info("Re-import read {} cafes in {} ms: {} inserted, {} updated, {} unchanged, {} failed",
+                read, System.currentTimeMillis() - start, stats.inserted, stats.updated, stats.unchanged, stats.failed);
+    }
 
-                double lat = node.get("lat").asDouble();
-                double lon = node.get("lon").asDouble();
-
-                Cafe cafe = new Cafe();
-                cafe.setName(name);
-                cafe.setLatitude(lat);
-                cafe.setLongitude(lon);
-
-                String desc = "Experience the local vibe.";
-                if (tags.has("description"))
-                    desc = tags.get("description").asText();
-                else if (tags.has("name:en"))
-                    desc = tags.get("name:en").asText();
-                cafe.setDescription(desc);
-
-                String address = "Taipei";
-                if (tags.has("addr:street")) {
-                    address = tags.get("addr:street").asText();
-                    if (tags.has("addr:housenumber")) {
-                        address += " " + tags.get("addr:housenumber").asText();
-                    }
+    /**
+     * Cafes imported before the OSM id was recorded, keyed by name and exact coordinates, so the
+     * re-import can link them to their source element instead of inserting duplicates.
+     */
+    private Map<String, String> loadUnlinkedCafes() {
+        Query unlinked = Query.query(Criteria.where("osmId").exists(false));
+        unlinked.fields().include("_id", "name", "latitude", "longitude");
+        Map<String, String> idsByKey = new ConcurrentHashMap<>();
+        try (Stream<Cafe> cafes = mongoTemplate.stream(unlinked, Cafe.class)) {
+            cafes.forEach(cafe -> idsByKey.put(unlinkedKey(cafe), cafe.getId()));
+        }
+        return idsByKey;
+    }
+
+    private void upsertChanged(List<Cafe> batch, ReimportStats stats) {
+        Map<String, Cafe> incoming = new LinkedHashMap<>();
+        for (Cafe cafe : batch) {
+            incoming.put(cafe.getOsmId(), cafe);
+        }
+        Map<String, Cafe> existing = new HashMap<>();
+        for (Cafe cafe : mongoTemplate.find(Query.query(Criteria.where("osmId").in(incoming.keySet())), Cafe.class)) {
+            existing.put(cafe.getOsmId(), cafe);
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cafe.class);
+        int writes = 0;
+        for (Cafe cafe : incoming.values()) {
+            Cafe current = existing.get(cafe.getOsmId());
+            if (current != null) {
+                if (sameSourceData(current, cafe)) {
+                    stats.unchanged.incrementAndGet();
+                    continue;
+                }
+                bulk.updateOne(Query.query(Criteria.where("_id").is(current.getId())), sourceUpdate(cafe));
+                stats.updated.incrementAndGet();
+            } else {
+                String unlinkedId = stats.unlinked.remove(unlinkedKey(cafe));
+                if (unlinkedId != null) {
+                    bulk.updateOne(Query.query(Criteria.where("_id").is(unlinkedId)), sourceUpdate(cafe));
+                    stats.updated.incrementAndGet();
+                } else {
+                    bulk.upsert(Query.query(Criteria.where("osmId").is(cafe.getOsmId())), sourceUpdate(cafe)
+                            .setOnInsert("imageUrls", cafe.getImageUrls())
+                            .setOnInsert("ratingSummary", cafe.getRatingSummary()));
+                    stats.inserted.incrementAndGet();
                 }
-                cafe.setAddress(address);
+            }
+            writes++;
+        }
+        if (writes > 0) {
+            bulk.execute();
+        }
+    }
+
+    // Fields that come from OpenStreetMap. Tags are only added, never removed, so tags users
+    // attached to a cafe survive a refresh.
+    private Update sourceUpdate(Cafe cafe) {
+        return new Update()
+                .set("osmId", cafe.getOsmId())
+                .set("name", cafe.getName())
+                .set("description", cafe.getDescription())
+                .set("address", cafe.getAddress())
+                .set("latitude", cafe.getLatitude())
+                .set("longitude", cafe.getLongitude())
+                .set("location", cafe.getLocation())
+                .inc("version", 1)
+                .addToSet("tags").each(cafe.getTags().toArray());
+    }
+
+    private boolean sameSourceData(Cafe stored, Cafe fresh) {
+        return Objects.equals(stored.getName(), fresh.getName())
+                && Objects.equals(stored.getDescription(), fresh.getDescription())
+                && Objects.equals(stored.getAddress(), fresh.getAddress())
+                && stored.getLatitude() == fresh.getLatitude()
+                && stored.getLongitude() == fresh.getLongitude()
+                && stored.getTags().containsAll(fresh.getTags());
+    }
 
-                cafe.setTags(generateTags(tags, name));
+    private static String unlinkedKey(Cafe cafe) {
+        return cafe.getName() + "|" + cafe.getLatitude() + "|" + cafe.getLongitude();
+    }
+
+    private static final class ReimportStats {
+        private final Map<String, String> unlinked;
+        private final AtomicInteger inserted = new AtomicInteger();
+        private final AtomicInteger updated = new AtomicInteger();
+        private final AtomicInteger unchanged = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
 
-                // Set default images based on cafe type
-                cafe.setImageUrls(generateImageUrls(cafe.getTags()));
+        private ReimportStats(Map<String, String> unlinked) {
+            this.unlinked = unlinked;
+        }
+    }
 
-                cafeRepository.save(cafe);
-                count++;
+    /**
+     * Maps one Overpass element to a cafe, or returns null if it has no name or coordinates.
+     */
+    private Cafe toCafe(JsonNode node) {
+        if (!node.has("tags") || !node.get("tags").has("name")) {
+            return null;
+        }
+        JsonNode tags = node.get("tags");
+        String name = tags.get("name").asText();
+
+        // Skip basic duplicates or bad data
+        if (name.isEmpty())
+            return null;
+
+        // Extract lat/lon. For ways, center logic is complex, so we skip exact center
+        // calculation for now or just take what we have.
+        // Overpass "out skel qt" for ways gives nodes but not center. "out center" is
+        // better for ways.
+        // Let's just use "node" type for simplicity, or if type is "node".
+        // If it's a way, without center in output, we don't have lat/lon on the element
+        // itself usually in this querying mode.
+        // We'll filter for type="node" OR elements that have lat/lon.
+        if (!node.has("lat") || !node.has("lon"))
+            return null;
+
+        double lat = node.get("lat").asDouble();
+        double lon = node.get("lon").asDouble();
+
+        Cafe cafe = new Cafe();
+        cafe.setOsmId(node.path("type").asText("node") + "/" + node.path("id").asText());
+        cafe.setName(name);
+        cafe.setLatitude(lat);
+        cafe.setLongitude(lon);
+
+        String desc = "Experience the local vibe.";
+        if (tags.has("description"))
+            desc = tags.get("description").asText();
+        else if (tags.has("name:en"))
+            desc = tags.get("name:en").asText();
+        cafe.setDescription(desc);
+
+        String address = "Taipei";
+        if (tags.has("addr:street")) {
+            address = tags.get("addr:street").asText();
+            if (tags.has("addr:housenumber")) {
+                address += " " + tags.get("addr:housenumber").asText();
             }
         }
-        System.out.println("🎉 Successfully imported " + count + " cafes!");
+        cafe.setAddress(address);
+
+        cafe.setTags(generateTags(tags, name));
+
+        // Set default images based on cafe type
+        cafe.setImageUrls(generateImageUrls(cafe.getTags()));
+        return cafe;
     }
 
-    private List<String> generateTags(JsonNode osmTags, String name) {
+    List<String> generateTags(JsonNode osmTags, String name) {
         Set<String> tags = new HashSet<>();
 
         // Keywords
@@ -0,0 +1,121 @@
+package com.example.coffeeshop.service;
+
+import com.example.coffeeshop.index.CompactIdSet;
+import com.example.coffeeshop.model.Cafe;
+import com.example.coffeeshop.model.Favorite;
+import com.example.coffeeshop.repository.FavoriteRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handles members' favourite cafes.
+ * Each user's favourites are cached as a compact id set, so "is this cafe a favourite" checks
+ * for a whole listing page are answered from memory in one call.
+ */
+@Service
+@Timed(value = "coffeeshop.service", histogram = true)
+public class FavoriteService {
+
+    /** Largest number of cafe ids accepted by one membership check. */
+    public static final int MAX_CONTAINS_IDS = 500;
+
+    private final FavoriteRepository favoriteRepository;
+    private final MongoTemplate mongoTemplate;
+    private final CafeService cafeService;
+    private final TrendingService trendingService;
+    private final Cache<String, CompactIdSet> favoritesByUser;
+
+    public FavoriteService(FavoriteRepository favoriteRepository, MongoTemplate mongoTemplate,
+                           CafeService cafeService, TrendingService trendingService,
+                           @Value("${favorites.cache.max-size:50000}") long maxSize,
+                           @Value("${favorites.cache.ttl:30m}") Duration ttl,
+                           MeterRegistry meterRegistry) {
+        this.favoriteRepository = favoriteRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.cafeService = cafeService;
+        this.trendingService = trendingService;
+        this.favoritesByUser = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, favoritesByUser, "favorites");
+    }
+
+    /**
+     * Returns the user's favourite cafes.
+     */
+    public List<Cafe> getFavoriteCafes(String userId) {
+        List<String> cafeIds = favoriteRepository.findByUserId(userId).stream()
+                .map(Favorite::getCafeId)
+                .toList();
+        return mongoTemplate.find(Query.query(Criteria.where("_id").in(cafeIds)), Cafe.class);
+    }
+
+    /**
+     * Marks the cafe as a favourite of the user. Returns false if it already was one.
+     * Throws IllegalArgumentException if the cafe does not exist.
+     */
+    public boolean addFavorite(String userId, String cafeId) {
+        if (cafeService.getCafeById(cafeId) == null) {
+            throw new IllegalArgumentException("Cafe not found");
+        }
+        boolean added;
+        try {
+            // The unique (userId, cafeId) index rejects the second insert of a pair.
+            mongoTemplate.insert(new Favorite(userId, cafeId));
+            added = true;
+            trendingService.recordFavorite(cafeId);
+        } catch (DuplicateKeyException ex) {
+            added = false;
+        }
+        favoritesByUser.asMap().computeIfPresent(userId, (id, favorites) -> favorites.with(cafeId));
+        return added;
+    }
+
+    /**
+     * Removes the cafe from the user's favourites. Returns false if it was not one.
+     */
+    public boolean removeFavorite(String userId, String cafeId) {
+        Query pair = Query.query(Criteria.where("userId").is(userId).and("cafeId").is(cafeId));
+        boolean removed = mongoTemplate.remove(pair, Favorite.class).getDeletedCount() > 0;
+        favoritesByUser.asMap().computeIfPresent(userId, (id, favorites) -> favorites.without(cafeId));
+        return removed;
+    }
+
+    /**
+     * Tells for each given cafe id whether it is one of the user's favourites, in request order.
+     * Throws IllegalArgumentException for more than {@link #MAX_CONTAINS_IDS} ids.
+     */
+    public Map<String, Boolean> containsFavorites(String userId, List<String> cafeIds) {
+        if (cafeIds.size() > MAX_CONTAINS_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_CONTAINS_IDS + " cafe ids per request");
+        }
+        CompactIdSet favorites = favoritesByUser.get(userId, this::loadFavorites);
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        for (String cafeId : cafeIds) {
+            result.put(cafeId, favorites.contains(cafeId));
+        }
+        return result;
+    }
+
+    private CompactIdSet loadFavorites(String userId) {
+        Query query = Query.query(Criteria.where("userId").is(userId));
+        query.fields().include("cafeId");
+        return CompactIdSet.of(mongoTemplate.find(query, Favorite.class).stream().map(Favorite::getCafeId).toList());
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.coffeeshop.service;
+
+import com.example.coffeeshop.model.Photo;
+import com.example.coffeeshop.model.PhotoVote;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Handles cafe photos and their votes.
+ * The most voted photos of each cafe are cached as a short ranked list that every vote updates
+ * in place, so the photo wall and the hero image are served without querying MongoDB.
+ */
+@Service
+@Timed(value = "coffeeshop.service", histogram = true)
+public class PhotoService {
+
+    /** Largest number of photos returned by a single request. */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Most votes first; the id keeps the order stable between photos with equal votes.
+    private static final Comparator<Photo> BY_VOTES =
+            Comparator.comparingInt(Photo::getVotes).reversed().thenComparing(Photo::getId);
+
+    private final MongoTemplate mongoTemplate;
+    private final CafeService cafeService;
+    private final CafeCardService cafeCardService;
+    private final int topPhotoCount;
+    private final Cache<String, List<Photo>> topPhotos;
+
+    public PhotoService(MongoTemplate mongoTemplate, CafeService cafeService, CafeCardService cafeCardService,
+                        @Value("${photos.top-cache.photos-per-cafe:12}") int topPhotoCount,
+                        @Value("${photos.top-cache.max-size:10000}") long maxSize,
+                        @Value("${photos.top-cache.ttl:30m}") Duration ttl,
+                        MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.cafeService = cafeService;
+        this.cafeCardService = cafeCardService;
+        this.topPhotoCount = Math.max(1, topPhotoCount);
+        this.topPhotos = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, topPhotos, "topPhotos");
+    }
+
+    /**
+     * Returns the cafe's photos, most voted first. Requests within the cached top photos are
+     * served from memory, larger ones by a query on the (cafeId, votes) index.
+     */
+    public List<Photo> getPhotos(String cafeId, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        if (size <= topPhotoCount) {
+            List<Photo> top = topPhotos(cafeId);
+            return top.size() > size ? top.subList(0, size) : top;
+        }
+        return mongoTemplate.find(topQuery(cafeId, size), Photo.class);
+    }
+
+    /**
+     * Returns the cafe's most voted photo, or null if it has none.
+     */
+    public Photo getHeroPhoto(String cafeId) {
+        List<Photo> top = topPhotos(cafeId);
+        return top.isEmpty() ? null : top.get(0);
+    }
+
+    /**
+     * Stores a photo for the cafe. Throws IllegalArgumentException if the cafe does not exist.
+     */
+    public Photo addPhoto(String cafeId, String userId, String url) {
+        if (cafeService.getCafeById(cafeId) == null) {
+            throw new IllegalArgumentException("Cafe not found");
+        }
+        Photo photo = mongoTemplate.insert(new Photo(cafeId, userId, url));
+        rank(photo);
+        return photo;
+    }
+
+    /**
+     * Toggles the user's vote for the photo and moves it within the cached ranking.
+     * The vote is recorded in photo_votes, whose unique (photoId, userId) index decides whether
+     * this adds or withdraws it; the count is only changed with $inc when that insert or delete
+     * succeeds. Throws IllegalArgumentException if the cafe has no such photo.
+     */
+    public Photo vote(String cafeId, String photoId, String userId) {
+        Query byPhoto = Query.query(Criteria.where("_id").is(photoId).and("cafeId").is(cafeId));
+        if (!mongoTemplate.exists(byPhoto, Photo.class)) {
+            throw new IllegalArgumentException("Photo not found");
+        }
+        int delta;
+        try {
+            mongoTemplate.insert(new PhotoVote(photoId, userId));
+            delta = 1;
+        } catch (DuplicateKeyException ex) {
+            long removed = mongoTemplate.remove(
+                    Query.query(Criteria.where("photoId").is(photoId).and("userId").is(userId)),
+                    PhotoVote.class).getDeletedCount();
+            // Zero means a concurrent toggle by the same user already withdrew it.
+            delta = removed > 0 ? -1 : 0;
+        }
+        if (delta == 0) {
+            return mongoTemplate.findOne(byPhoto, Photo.class);
+        }
+        Photo photo = mongoTemplate.findAndModify(byPhoto,
+                new Update().inc("votes", delta).inc("voteRevision", 1),
+                FindAndModifyOptions.options().returnNew(true), Photo.class);
+        if (photo == null) {
+            throw new IllegalArgumentException("Photo not found");
+        }
+        rank(photo);
+        return photo;
+    }
+
+    private List<Photo> topPhotos(String cafeId) {
+        return topPhotos.get(cafeId, id -> List.copyOf(mongoTemplate.find(topQuery(id, topPhotoCount), Photo.class)));
+    }
+
+    private Query topQuery(String cafeId, int limit) {
+        return Query.query(Criteria.where("cafeId").is(cafeId))
+                .with(Sort.by(Sort.Order.desc("votes"), Sort.Order.asc("_id")))
+                .limit(limit);
+    }
+
+    // Merges the photo's new vote count into the cached ranking and keeps the card's hero image
+    // in step. Of two concurrent updates the one with the higher vote revision wins.
+    private void rank(Photo photo) {
+        String cafeId = photo.getCafeId();
+        String previousHero = heroId(topPhotos.getIfPresent(cafeId));
+        List<Photo> ranked = topPhotos.asMap().computeIfPresent(cafeId, (id, current) -> {
+            List<Photo> merged = new ArrayList<>(current.size() + 1);
+            Photo latest = photo;
+            for (Photo cached : current) {
+                if (cached.getId().equals(photo.getId())) {
+                    if (cached.getVoteRevision() > photo.getVoteRevision()) {
+                        latest = cached;
+                    }
+                } else {
+                    merged.add(cached);
+                }
+            }
+            merged.add(latest);
+            merged.sort(BY_VOTES);
+            // A photo that drops off the end is rarely voted again; if it is, it is merged back here.
+            return List.copyOf(merged.size() > topPhotoCount ? merged.subList(0, topPhotoCount) : merged);
+        });
+        if (ranked == null) {
+            // Not cached: the ranking is loaded fresh on the next read; refresh the card directly.
+            cafeCardService.updateTopPhoto(cafeId);
+        } else if (!ranked.isEmpty() && !ranked.get(0).getId().equals(previousHero)) {
+            cafeCardService.updateTopPhoto(cafeId, ranked.get(0).getUrl());
+        }
+    }
+
+    private static String heroId(List<Photo> ranked) {
+        return ranked == null || ranked.isEmpty() ? null : ranked.get(0).getId();
+    }
+}
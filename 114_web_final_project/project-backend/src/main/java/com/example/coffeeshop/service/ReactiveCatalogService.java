@@ -0,0 +1,55 @@
+package com.example.coffeeshop.service;
+
+import com.example.coffeeshop.model.Cafe;
+import com.example.coffeeshop.model.Review;
+import com.example.coffeeshop.repository.reactive.ReactiveCafeRepository;
+import com.example.coffeeshop.repository.reactive.ReactiveReviewRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+/**
+ * Streaming reads of cafes and reviews over the reactive MongoDB driver.
+ * Documents are requested from MongoDB only as fast as the client consumes them, at most
+ * reactive.prefetch ahead, so a stream of any length holds a bounded number of documents and
+ * no thread waits on the database while it runs.
+ */
+@Service
+public class ReactiveCatalogService {
+
+    private final ReactiveCafeRepository cafeRepository;
+    private final ReactiveReviewRepository reviewRepository;
+    private final int prefetch;
+
+    public ReactiveCatalogService(ReactiveCafeRepository cafeRepository, ReactiveReviewRepository reviewRepository,
+                                  @Value("${reactive.prefetch:256}") int prefetch) {
+        this.cafeRepository = cafeRepository;
+        this.reviewRepository = reviewRepository;
+        this.prefetch = Math.max(1, prefetch);
+    }
+
+    public Flux<Cafe> streamCafes() {
+        return cafeRepository.findAll(Sort.by("_id")).limitRate(prefetch);
+    }
+
+    /**
+     * Cafes inside the bounding box, e.g. the visible part of the map.
+     * Throws IllegalArgumentException if the box is empty or outside valid coordinates.
+     */
+    public Flux<Cafe> streamCafesWithin(double south, double west, double north, double east) {
+        if (south >= north || west >= east || south < -90 || north > 90 || west < -180 || east > 180) {
+            throw new IllegalArgumentException("Invalid bounding box");
+        }
+        GeoJsonPolygon box = new GeoJsonPolygon(
+                new Point(west, south), new Point(east, south), new Point(east, north),
+                new Point(west, north), new Point(west, south));
+        return cafeRepository.findByLocationWithin(box).limitRate(prefetch);
+    }
+
+    public Flux<Review> streamReviews(String cafeId) {
+        return reviewRepository.findByCafeIdNewestFirst(cafeId).limitRate(prefetch);
+    }
+}
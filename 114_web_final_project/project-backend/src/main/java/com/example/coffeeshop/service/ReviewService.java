@@ -1,29 +1,388 @@
 package com.example.coffeeshop.service;
 
+import com.example.coffeeshop.model.Cafe;
+import com.example.coffeeshop.model.CafeRatingSummary;
 import com.example.coffeeshop.model.Review;
 import com.example.coffeeshop.repository.ReviewRepository;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * Handles creation and retrieval of reviews.  
+ * Handles creation and retrieval of reviews.
  * Additional logic such as anti‑spam measures can be added here later.
  */
 @Service
-public class ReviewService {
+@Timed(value = "coffeeshop.service", histogram = true)
+public class ReviewService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewService.class);
+
+    /** Largest page of reviews returned by a single request. */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // How long the idle write-behind worker waits before re-checking for shutdown.
+    private static final long IDLE_POLL_MILLIS = 100;
+    // Backoff between attempts to write a batch that failed, doubling up to the maximum.
+    private static final long RETRY_INITIAL_BACKOFF_MILLIS = 100;
+    private static final long RETRY_MAX_BACKOFF_MILLIS = 5_000;
 
     private final ReviewRepository reviewRepository;
+    private final MongoTemplate mongoTemplate;
+    private final CafeService cafeService;
+    private final CafeCardService cafeCardService;
+    private final TrendingService trendingService;
+
+    // Write-behind state; the queue and worker are null unless reviews.write-behind.enabled is set.
+    private final BlockingQueue<Review> pendingReviews;
+    private final Thread writeBehindWorker;
+    private final int writeBehindBatchSize;
+    private final Duration writeBehindMaxDelay;
+    private final Counter rejectedReviews;
+    private volatile boolean acceptingReviews = true;
+    // Queuing holds the read lock and shutdown the write lock, so no review is queued after the
+    // worker has been told to finish.
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
 
-    public ReviewService(ReviewRepository reviewRepository) {
+    public ReviewService(ReviewRepository reviewRepository, MongoTemplate mongoTemplate, CafeService cafeService,
+                         CafeCardService cafeCardService, TrendingService trendingService,
+                         MeterRegistry meterRegistry,
+                         @Value("${reviews.write-behind.enabled:false}") boolean writeBehind,
+                         @Value("${reviews.write-behind.queue-capacity:10000}") int queueCapacity,
+                         @Value("${reviews.write-behind.batch-size:500}") int batchSize,
+                         @Value("${reviews.write-behind.max-delay:200ms}") Duration maxDelay) {
         this.reviewRepository = reviewRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.cafeService = cafeService;
+        this.cafeCardService = cafeCardService;
+        this.trendingService = trendingService;
+        this.writeBehindBatchSize = Math.max(1, batchSize);
+        this.writeBehindMaxDelay = maxDelay;
+        this.rejectedReviews = Counter.builder("reviews.write-behind.rejected")
+                .description("Reviews refused because the write-behind queue was full")
+                .register(meterRegistry);
+        if (writeBehind) {
+            this.pendingReviews = new ArrayBlockingQueue<>(queueCapacity);
+            Gauge.builder("reviews.write-behind.queue.depth", pendingReviews, BlockingQueue::size)
+                    .description("Accepted reviews not yet written to MongoDB")
+                    .register(meterRegistry);
+            this.writeBehindWorker = new Thread(this::runWriteBehind, "review-write-behind");
+            this.writeBehindWorker.setDaemon(true);
+            this.writeBehindWorker.start();
+        } else {
+            this.pendingReviews = null;
+            this.writeBehindWorker = null;
+        }
     }
 
+    /**
+     * Whether {@link #addReview} only queues reviews for a background insert.
+     */
+    public boolean isWriteBehind() {
+        return pendingReviews != null;
+    }
+
+    /**
+     * Stores the review and folds its rating into the cafe's rating summary.
+     * In write-behind mode the review is given its id and queued instead, and is written with
+     * other queued reviews shortly after; a full queue is reported as RejectedExecutionException.
+     */
     public Review addReview(Review review) {
-        return reviewRepository.save(review);
+        if (pendingReviews == null) {
+            Review saved = reviewRepository.save(review);
+            recordRatings(saved.getCafeId(), List.of(saved.getRating()));
+            return saved;
+        }
+        review.setId(new ObjectId().toHexString());
+        boolean queued;
+        acceptLock.readLock().lock();
+        try {
+            queued = acceptingReviews && pendingReviews.offer(review);
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+        if (!queued) {
+            rejectedReviews.increment();
+            throw new RejectedExecutionException("Review queue is full");
+        }
+        return review;
+    }
+
+    /**
+     * Stops accepting reviews and waits for the worker to write everything already queued.
+     */
+    @PreDestroy
+    public void drainPendingReviews() throws InterruptedException {
+        if (writeBehindWorker == null) {
+            return;
+        }
+        acceptLock.writeLock().lock();
+        try {
+            acceptingReviews = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        writeBehindWorker.join(TimeUnit.SECONDS.toMillis(30));
+        if (writeBehindWorker.isAlive()) {
+            log.error("Shut down before the write-behind worker finished; {} queued reviews and the batch "
+                    + "being retried are unwritten", pendingReviews.size());
+        }
+    }
+
+    // Collects reviews until the batch is full or the oldest has waited max-delay, then writes them.
+    private void runWriteBehind() {
+        try {
+            while (acceptingReviews || !pendingReviews.isEmpty()) {
+                Review first = pendingReviews.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Review> batch = new ArrayList<>(writeBehindBatchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + writeBehindMaxDelay.toNanos();
+                while (batch.size() < writeBehindBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Review next = remaining > 0
+                            ? pendingReviews.poll(remaining, TimeUnit.NANOSECONDS)
+                            : pendingReviews.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeBatch(batch);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Writes the batch, retrying with backoff until every review is stored or refused by the database.
+    // The reviews were already acknowledged, so a failure must not lose them.
+    private void writeBatch(List<Review> batch) throws InterruptedException {
+        List<Review> remaining = batch;
+        long backoffMillis = RETRY_INITIAL_BACKOFF_MILLIS;
+        while (true) {
+            List<Review> retry = new ArrayList<>();
+            recordWritten(insert(remaining, retry));
+            if (retry.isEmpty()) {
+                return;
+            }
+            log.warn("Failed to write {} queued reviews, retrying in {} ms", retry.size(), backoffMillis);
+            Thread.sleep(backoffMillis);
+            backoffMillis = Math.min(backoffMillis * 2, RETRY_MAX_BACKOFF_MILLIS);
+            remaining = retry;
+        }
+    }
+
+    // Inserts the reviews in one unordered bulk write and returns those now stored. Reviews whose
+    // outcome is unknown are added to retry; a duplicate id on a later attempt means an earlier one
+    // stored the review, so it counts as written. Reviews the database refused are dropped.
+    private List<Review> insert(List<Review> reviews, List<Review> retry) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+        bulk.insert(reviews);
+        try {
+            bulk.execute();
+            return reviews;
+        } catch (BulkOperationException ex) {
+            Set<Integer> refused = new HashSet<>();
+            for (BulkWriteError error : ex.getErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    refused.add(error.getIndex());
+                    log.error("Dropped queued review {}: {}", reviews.get(error.getIndex()).getId(), error.getMessage());
+                }
+            }
+            List<Review> written = new ArrayList<>(reviews.size());
+            for (int i = 0; i < reviews.size(); i++) {
+                if (!refused.contains(i)) {
+                    written.add(reviews.get(i));
+                }
+            }
+            if (ex.getErrors().isEmpty()) {
+                // Only the write concern failed; the inserts may or may not have been applied.
+                retry.addAll(written);
+                return List.of();
+            }
+            return written;
+        } catch (DataAccessException ex) {
+            retry.addAll(reviews);
+            return List.of();
+        } catch (RuntimeException ex) {
+            // Not a database failure (e.g. a mapping error), so a retry would fail the same way.
+            log.error("Dropped {} queued reviews", reviews.size(), ex);
+            return List.of();
+        }
+    }
+
+    private void recordWritten(List<Review> written) {
+        Map<String, List<Integer>> ratingsByCafe = new LinkedHashMap<>();
+        for (Review review : written) {
+            ratingsByCafe.computeIfAbsent(review.getCafeId(), id -> new ArrayList<>()).add(review.getRating());
+        }
+        ratingsByCafe.forEach(this::recordRatings);
+    }
+
+    /**
+     * Entity tag of the cafe's review list. Reviews are only ever added, so the review count
+     * kept in the rating summary identifies the list; it is read from the cafe detail cache.
+     */
+    public String reviewsETag(String cafeId) {
+        Cafe cafe = cafeService.getCafeById(cafeId);
+        long count = cafe == null ? 0 : cafe.getRatingSummary().getCount();
+        return "reviews-" + cafeId + "-" + count;
+    }
+
+    /**
+     * Returns one page of the cafe's reviews, newest first, starting strictly after the cursor.
+     * The cursor comes from {@link #cursorOf} for the last review of the previous page; pass null
+     * for the first page. Image URLs are left out unless {@code includeImages} is set.
+     * Throws IllegalArgumentException for an invalid cursor.
+     */
+    public List<Review> getReviewsByCafe(String cafeId, String after, int limit, boolean includeImages) {
+        Query query = Query.query(Criteria.where("cafeId").is(cafeId))
+                .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")))
+                .limit(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        if (after != null && !after.isBlank()) {
+            query.addCriteria(beforeCursor(after));
+        }
+        if (!includeImages) {
+            query.fields().exclude("imageUrls");
+        }
+        return mongoTemplate.find(query, Review.class);
+    }
+
+    /**
+     * Returns the cursor that continues a review listing after this review.
+     */
+    public String cursorOf(Review review) {
+        return review.getCreatedAt().getTime() + "_" + review.getId();
+    }
+
+    // Reviews after (createdAt, id) in the order createdAt desc, id desc.
+    private Criteria beforeCursor(String cursor) {
+        int separator = cursor.indexOf('_');
+        String id = separator < 0 ? "" : cursor.substring(separator + 1);
+        if (!ObjectId.isValid(id)) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        Date createdAt;
+        try {
+            createdAt = new Date(Long.parseLong(cursor.substring(0, separator)));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return new Criteria().orOperator(
+                Criteria.where("createdAt").lt(createdAt),
+                Criteria.where("createdAt").is(createdAt).and("_id").lt(new ObjectId(id)));
+    }
+
+    /**
+     * Runs the rating summary backfill once all beans exist but before the web server starts,
+     * so no review can create a partial summary first and make a legacy cafe look backfilled.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        backfillRatingSummaries();
+    }
+
+    /**
+     * Builds the rating summary of cafes stored before summaries existed, from their reviews.
+     */
+    void backfillRatingSummaries() {
+        Query legacy = Query.query(Criteria.where("ratingSummary").exists(false));
+        legacy.fields().include("_id");
+        List<String> cafeIds = mongoTemplate.find(legacy, Cafe.class).stream().map(Cafe::getId).toList();
+        if (cafeIds.isEmpty()) {
+            return;
+        }
+
+        Aggregation perStar = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("cafeId").in(cafeIds)),
+                Aggregation.group("cafeId", "rating").count().as("count"));
+        Map<String, CafeRatingSummary> summaries = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(perStar, Review.class, Document.class)) {
+            Document key = row.get("_id", Document.class);
+            summaries.computeIfAbsent(key.getString("cafeId"), id -> new CafeRatingSummary())
+                    .record(key.getInteger("rating"), ((Number) row.get("count")).longValue());
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cafe.class);
+        for (String cafeId : cafeIds) {
+            CafeRatingSummary summary = summaries.getOrDefault(cafeId, new CafeRatingSummary());
+            // Guarded by the same condition, so a review recorded meanwhile is never overwritten.
+            bulk.updateOne(Query.query(Criteria.where("_id").is(cafeId).and("ratingSummary").exists(false)),
+                    Update.update("ratingSummary", summary).inc("version", 1));
+        }
+        bulk.execute();
+        log.info("Built rating summaries for {} cafes", cafeIds.size());
     }
 
-    public List<Review> getReviewsByCafe(String cafeId) {
-        return reviewRepository.findByCafeId(cafeId);
+    /**
+     * Atomically adds the ratings to the cafe's summary with $inc, then publishes the new average.
+     */
+    private void recordRatings(String cafeId, List<Integer> ratings) {
+        long sum = 0;
+        Map<Integer, Integer> perStar = new HashMap<>();
+        for (int rating : ratings) {
+            sum += rating;
+            perStar.merge(rating, 1, Integer::sum);
+        }
+        Update increment = new Update()
+                .inc("ratingSummary.count", ratings.size())
+                .inc("ratingSummary.sum", sum);
+        perStar.forEach((rating, times) -> increment.inc("ratingSummary.histogram." + rating, times));
+        Cafe cafe = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(cafeId)), increment,
+                FindAndModifyOptions.options().returnNew(true), Cafe.class);
+        if (cafe == null) {
+            return;
+        }
+        CafeRatingSummary summary = cafe.getRatingSummary();
+        summary.setAverage((double) summary.getSum() / summary.getCount());
+        // Only the write that produced the current count may set the average. If another review
+        // landed in between, its own update carries the newer value and this one matches nothing.
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(cafeId).and("ratingSummary.count").is(summary.getCount())),
+                Update.update("ratingSummary.average", summary.getAverage()),
+                Cafe.class);
+        cafeCardService.updateRating(cafeId, summary);
+        cafeService.onCafeChanged(cafe);
+        trendingService.recordReviews(cafeId, ratings.size());
     }
-}
\ No newline at end of file
+}
@@ -2,30 +2,96 @@ package com.example.coffeeshop.service;
 
 import com.example.coffeeshop.model.Cafe;
 import com.example.coffeeshop.model.Tag;
-import com.example.coffeeshop.repository.CafeRepository;
 import com.example.coffeeshop.repository.TagRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Handles creation and association of tags with cafes.  
+ * Handles creation and association of tags with cafes.
  * Tags are persisted separately and can be applied to multiple cafes.
  */
 @Service
-public class TagService {
+@Timed(value = "coffeeshop.service", histogram = true)
+public class TagService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(TagService.class);
 
     private final TagRepository tagRepository;
-    private final CafeRepository cafeRepository;
+    private final MongoTemplate mongoTemplate;
+    private final CafeService cafeService;
+    private final CafeCardService cafeCardService;
+    private final TrendingService trendingService;
+    // Weight increments not yet written to MongoDB, or null when every increment is written at once.
+    private final Map<String, LongAdder> pendingWeights;
 
-    public TagService(TagRepository tagRepository, CafeRepository cafeRepository) {
+    public TagService(TagRepository tagRepository, MongoTemplate mongoTemplate, CafeService cafeService,
+                      CafeCardService cafeCardService, TrendingService trendingService,
+                      @Value("${tags.weight-batching.enabled:false}") boolean weightBatching) {
         this.tagRepository = tagRepository;
-        this.cafeRepository = cafeRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.cafeService = cafeService;
+        this.cafeCardService = cafeCardService;
+        this.trendingService = trendingService;
+        this.pendingWeights = weightBatching ? new ConcurrentHashMap<>() : null;
     }
 
     /**
-     * Returns all tags in the database.  
+     * Merges tags stored more than once under the same name, which versions before the unique
+     * index could create, and then creates that index. Runs once all beans exist but before the
+     * web server starts; creating the index over duplicates would fail startup.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        mergeDuplicateTags();
+        mongoTemplate.indexOps(Tag.class).ensureIndex(new Index("name", Sort.Direction.ASC).unique().named("name"));
+    }
+
+    // Keeps the first document of each name with the summed weight and deletes the others.
+    private void mergeDuplicateTags() {
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.group("name").sum("weight").as("weight").push("_id").as("ids").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1)));
+        int merged = 0;
+        for (Document group : mongoTemplate.aggregate(duplicates, Tag.class, Document.class)) {
+            String name = group.getString("_id");
+            List<Object> ids = group.getList("ids", Object.class);
+            long weight = ((Number) group.get("weight")).longValue();
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(ids.get(0))),
+                    Update.update("weight", weight), Tag.class);
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids.subList(1, ids.size()))), Tag.class);
+            cafeCardService.setTagWeight(name, weight);
+            merged++;
+        }
+        if (merged > 0) {
+            log.info("Merged duplicate documents of {} tags", merged);
+        }
+    }
+
+    /**
+     * Returns all tags in the database.
      * Useful for populating tag pickers on the client side.
      */
     public List<Tag> listAllTags() {
@@ -33,29 +99,75 @@ public class TagService {
     }
 
     /**
-     * Adds a new tag to a cafe.  If the tag does not exist it is created.  
+     * Adds a new tag to a cafe.  If the tag does not exist it is created.
      * The tag name is normalized to lower case to avoid duplicates by case.
+     * Both writes are single atomic updates ($addToSet on the cafe, an $inc upsert on the tag),
+     * so concurrent taggers never overwrite each other.
      */
     public Cafe addTagToCafe(String cafeId, String tagName) {
-        Optional<Cafe> optionalCafe = cafeRepository.findById(cafeId);
-        if (optionalCafe.isEmpty()) {
+        String normalized = tagName.trim().toLowerCase();
+        Cafe cafe = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(cafeId)),
+                new Update().addToSet("tags", normalized),
+                FindAndModifyOptions.options().returnNew(true), Cafe.class);
+        if (cafe == null) {
             throw new IllegalArgumentException("Cafe not found");
         }
-        Cafe cafe = optionalCafe.get();
-        String normalized = tagName.trim().toLowerCase();
-        if (!cafe.getTags().contains(normalized)) {
-            cafe.getTags().add(normalized);
-        }
-        // Persist cafe changes
-        cafeRepository.save(cafe);
-        // Ensure tag exists
-        Tag tag = tagRepository.findByName(normalized).orElseGet(() -> {
-            Tag t = new Tag(normalized);
-            return tagRepository.save(t);
-        });
+        cafeService.onCafeChanged(cafe);
+        cafeCardService.addTag(cafeId, normalized);
+        trendingService.recordTag(cafeId);
         // Increase the weight to reflect another usage of the tag
-        tag.incrementWeight();
-        tagRepository.save(tag);
+        if (pendingWeights != null) {
+            pendingWeights.computeIfAbsent(normalized, name -> new LongAdder()).increment();
+        } else {
+            incrementWeight(normalized, 1);
+        }
         return cafe;
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the batched weight increments as one bulk of $inc upserts.
+     * Runs every tags.weight-batching.flush-interval while batching is enabled, and on shutdown.
+     */
+    @Scheduled(fixedDelayString = "${tags.weight-batching.flush-interval:PT5S}")
+    @PreDestroy
+    public void flushWeights() {
+        if (pendingWeights == null) {
+            return;
+        }
+        Map<String, Long> increments = new HashMap<>();
+        pendingWeights.forEach((name, counter) -> {
+            long delta = counter.sumThenReset();
+            if (delta > 0) {
+                increments.put(name, delta);
+            }
+        });
+        if (increments.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Tag.class);
+            increments.forEach((name, delta) -> bulk.upsert(byName(name), new Update().inc("weight", delta)));
+            bulk.execute();
+        } catch (RuntimeException ex) {
+            // Put the counts back so the next flush retries them.
+            increments.forEach((name, delta) -> pendingWeights.computeIfAbsent(name, key -> new LongAdder()).add(delta));
+            log.error("Failed to flush tag weights, will retry", ex);
+            return;
+        }
+        increments.forEach(cafeCardService::incrementTagWeight);
+    }
+
+    private void incrementWeight(String name, long delta) {
+        try {
+            mongoTemplate.upsert(byName(name), new Update().inc("weight", delta), Tag.class);
+        } catch (DuplicateKeyException ex) {
+            // Two first uses of a tag raced to insert it; the other one won, so update its document.
+            mongoTemplate.updateFirst(byName(name), new Update().inc("weight", delta), Tag.class);
+        }
+        cafeCardService.incrementTagWeight(name, delta);
+    }
+
+    private static Query byName(String name) {
+        return Query.query(Criteria.where("name").is(name));
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.coffeeshop.service;
+
+import com.example.coffeeshop.dto.TrendingCafe;
+import com.example.coffeeshop.index.DecayingTopK;
+import com.example.coffeeshop.model.Cafe;
+import com.example.coffeeshop.model.Favorite;
+import com.example.coffeeshop.model.Review;
+import io.micrometer.core.annotation.Timed;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Ranks cafes by recent activity for the trending list.
+ * Reviews, favourites and tags add weighted points to a cafe, and every point halves once per
+ * trending.half-life. The services that store those events report them here as they happen,
+ * so the ranking is kept in memory and never computed by scanning the collections.
+ */
+@Service
+@Timed(value = "coffeeshop.service", histogram = true)
+public class TrendingService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final CafeService cafeService;
+    private final DecayingTopK leaderboard;
+    private final double reviewWeight;
+    private final double favoriteWeight;
+    private final double tagWeight;
+    private final Duration replayWindow;
+    // Events with ids from here on are recorded live, so the replay stops before it.
+    private final ObjectId replayCutoff = new ObjectId();
+    // Resolved leaderboard, rebuilt by refreshSnapshot after the ranking changed; reads only return it.
+    private volatile Snapshot snapshot = new Snapshot(-1, List.of());
+
+    public TrendingService(MongoTemplate mongoTemplate, CafeService cafeService,
+                           @Value("${trending.size:100}") int size,
+                           @Value("${trending.half-life:48h}") Duration halfLife,
+                           @Value("${trending.weights.review:3}") double reviewWeight,
+                           @Value("${trending.weights.favorite:2}") double favoriteWeight,
+                           @Value("${trending.weights.tag:1}") double tagWeight,
+                           @Value("${trending.replay-window:7d}") Duration replayWindow) {
+        this.mongoTemplate = mongoTemplate;
+        this.cafeService = cafeService;
+        this.leaderboard = new DecayingTopK(size, halfLife.toMillis(), System.currentTimeMillis());
+        this.reviewWeight = reviewWeight;
+        this.favoriteWeight = favoriteWeight;
+        this.tagWeight = tagWeight;
+        this.replayWindow = replayWindow;
+    }
+
+    public void recordReviews(String cafeId, int count) {
+        leaderboard.add(cafeId, reviewWeight * count, System.currentTimeMillis());
+    }
+
+    public void recordFavorite(String cafeId) {
+        leaderboard.add(cafeId, favoriteWeight, System.currentTimeMillis());
+    }
+
+    public void recordTag(String cafeId) {
+        leaderboard.add(cafeId, tagWeight, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the top cafes, highest score first, from the prebuilt snapshot. Changes in ranking
+     * show up within trending.refresh-interval.
+     */
+    public List<TrendingCafe> getTrending(int limit) {
+        List<TrendingCafe> cafes = snapshot.cafes;
+        return cafes.subList(0, Math.min(Math.max(limit, 0), cafes.size()));
+    }
+
+    /**
+     * Resolves the current leaderboard to cafes if the ranking changed since the last snapshot,
+     * so no request pays for the lookups. Runs every trending.refresh-interval and after the replay.
+     */
+    @Scheduled(fixedDelayString = "${trending.refresh-interval:PT1S}")
+    public void refreshSnapshot() {
+        long version = leaderboard.version();
+        if (snapshot.version != version) {
+            snapshot = new Snapshot(version, resolve(leaderboard.top(System.currentTimeMillis())));
+        }
+    }
+
+    /**
+     * Replays the reviews and favourites of the last trending.replay-window so the ranking
+     * survives a restart. Both are selected by the creation time inside their ObjectId, which
+     * the _id index serves; tag uses are not stored per event and start from zero.
+     * Requests are already being served while this runs, so only ids older than this service are
+     * replayed; later events have been recorded live and would otherwise count twice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayRecentEvents() {
+        ObjectId from = new ObjectId(new Date(System.currentTimeMillis() - replayWindow.toMillis()));
+        long replayed = replay(Review.class, Review::getId, Review::getCafeId, reviewWeight, from)
+                + replay(Favorite.class, Favorite::getId, Favorite::getCafeId, favoriteWeight, from);
+        log.info("Replayed {} recent events into the trending list", replayed);
+        refreshSnapshot();
+    }
+
+    private <T> long replay(Class<T> type, Function<T, String> id, Function<T, String> cafeId,
+                            double weight, ObjectId from) {
+        Query recent = Query.query(Criteria.where("_id").gte(from).lt(replayCutoff));
+        recent.fields().include("cafeId");
+        long count = 0;
+        try (Stream<T> events = mongoTemplate.stream(recent, type)) {
+            for (T event : (Iterable<T>) events::iterator) {
+                String eventId = id.apply(event);
+                if (ObjectId.isValid(eventId)) {
+                    leaderboard.add(cafeId.apply(event), weight, new ObjectId(eventId).getDate().getTime());
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private List<TrendingCafe> resolve(List<DecayingTopK.Ranked> ranked) {
+        Map<String, Cafe> byId = new HashMap<>();
+        for (Cafe cafe : cafeService.getCafesByIds(ranked.stream().map(DecayingTopK.Ranked::getId).toList())) {
+            byId.put(cafe.getId(), cafe);
+        }
+        List<TrendingCafe> cafes = new ArrayList<>(ranked.size());
+        for (DecayingTopK.Ranked entry : ranked) {
+            Cafe cafe = byId.get(entry.getId());
+            if (cafe != null) {
+                cafes.add(new TrendingCafe(cafe.getId(), cafe.getName(), cafe.getAddress(), entry.getScore()));
+            }
+        }
+        return List.copyOf(cafes);
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final List<TrendingCafe> cafes;
+
+        private Snapshot(long version, List<TrendingCafe> cafes) {
+            this.version = version;
+            this.cafes = cafes;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.coffeeshop.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent traces in memory, for the /actuator/traces endpoint.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final Deque<RequestTrace> traces = new ArrayDeque<>();
+
+    public InMemorySpanExporter(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    @Override
+    public synchronized void export(RequestTrace trace) {
+        traces.addFirst(trace);
+        if (traces.size() > capacity) {
+            traces.removeLast();
+        }
+    }
+
+    /**
+     * The kept traces, newest first.
+     */
+    public synchronized List<RequestTrace> recent() {
+        return new ArrayList<>(traces);
+    }
+}
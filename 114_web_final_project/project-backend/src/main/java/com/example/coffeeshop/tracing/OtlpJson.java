@@ -0,0 +1,58 @@
+package com.example.coffeeshop.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Map;
+
+/**
+ * Encodes traces in the OTLP/JSON format (an ExportTraceServiceRequest), which the
+ * OpenTelemetry Collector accepts over HTTP and reads from files with its otlpjsonfile receiver.
+ */
+public final class OtlpJson {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String SCOPE_NAME = "com.example.coffeeshop.tracing";
+    // OTLP status codes
+    private static final int STATUS_ERROR = 2;
+
+    private OtlpJson() {
+    }
+
+    public static ObjectNode encode(RequestTrace trace, String serviceName) {
+        ObjectNode request = MAPPER.createObjectNode();
+        ObjectNode resourceSpans = request.putArray("resourceSpans").addObject();
+        addAttribute(resourceSpans.putObject("resource").putArray("attributes"), "service.name", serviceName);
+        ObjectNode scopeSpans = resourceSpans.putArray("scopeSpans").addObject();
+        scopeSpans.putObject("scope").put("name", SCOPE_NAME);
+        ArrayNode spans = scopeSpans.putArray("spans");
+        for (Span span : trace.getSpans()) {
+            ObjectNode node = spans.addObject();
+            node.put("traceId", trace.getTraceId());
+            node.put("spanId", span.getSpanId());
+            if (span.getParentSpanId() != null) {
+                node.put("parentSpanId", span.getParentSpanId());
+            }
+            node.put("name", span.getName());
+            node.put("kind", span.getKind().getOtlpValue());
+            // 64-bit integers are strings in OTLP/JSON.
+            node.put("startTimeUnixNano", Long.toString(trace.epochNanos(span.getStartNanos())));
+            node.put("endTimeUnixNano", Long.toString(trace.epochNanos(span.getEndNanos())));
+            ArrayNode attributes = node.putArray("attributes");
+            for (Map.Entry<String, String> attribute : span.getAttributes().entrySet()) {
+                addAttribute(attributes, attribute.getKey(), attribute.getValue());
+            }
+            if (span.isError()) {
+                node.putObject("status").put("code", STATUS_ERROR);
+            }
+        }
+        return request;
+    }
+
+    private static void addAttribute(ArrayNode attributes, String key, String value) {
+        ObjectNode attribute = attributes.addObject();
+        attribute.put("key", key);
+        attribute.putObject("value").put("stringValue", value);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.coffeeshop.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends each trace to a file as one line of OTLP/JSON, the layout the OpenTelemetry
+ * Collector's otlpjsonfile receiver reads.
+ */
+public class OtlpJsonFileSpanExporter implements SpanExporter, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OtlpJsonFileSpanExporter.class);
+
+    private final Path path;
+    private final String serviceName;
+    private BufferedWriter writer;
+
+    public OtlpJsonFileSpanExporter(Path path, String serviceName) {
+        this.path = path;
+        this.serviceName = serviceName;
+    }
+
+    @Override
+    public synchronized void export(RequestTrace trace) {
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(OtlpJson.encode(trace, serviceName).toString());
+            writer.newLine();
+            writer.flush();
+        } catch (IOException ex) {
+            log.warn("Could not write trace {} to {}", trace.getTraceId(), path, ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
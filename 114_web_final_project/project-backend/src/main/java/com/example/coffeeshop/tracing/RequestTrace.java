@@ -0,0 +1,117 @@
+package com.example.coffeeshop.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The spans recorded while handling one request. A trace is only touched by the thread
+ * handling the request, so it needs no locking.
+ */
+public class RequestTrace {
+
+    private final String traceId;
+    private final long epochNanosAtStart;
+    private final long nanoTimeAtStart;
+    private final Span root;
+    private final List<Span> finished = new ArrayList<>();
+    private final Deque<Span> open = new ArrayDeque<>();
+
+    RequestTrace(String traceId, String remoteParentSpanId, String name) {
+        this.traceId = traceId;
+        this.epochNanosAtStart = System.currentTimeMillis() * 1_000_000L;
+        this.nanoTimeAtStart = System.nanoTime();
+        this.root = new Span(newSpanId(), remoteParentSpanId, name, Span.Kind.SERVER, nanoTimeAtStart);
+        open.push(root);
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public Span getRoot() {
+        return root;
+    }
+
+    /**
+     * Finished spans in the order they ended; the root comes last once the trace has ended.
+     */
+    public List<Span> getSpans() {
+        return finished;
+    }
+
+    /**
+     * Converts a {@link System#nanoTime()} reading taken during this trace to Unix epoch nanoseconds.
+     */
+    public long epochNanos(long nanoTime) {
+        return epochNanosAtStart + (nanoTime - nanoTimeAtStart);
+    }
+
+    Span startSpan(String name, Span.Kind kind) {
+        Span span = new Span(newSpanId(), open.peek().getSpanId(), name, kind, System.nanoTime());
+        open.push(span);
+        return span;
+    }
+
+    void endSpan(Span span) {
+        if (span.getEndNanos() != 0) {
+            return;
+        }
+        span.setEndNanos(System.nanoTime());
+        open.remove(span);
+        finished.add(span);
+    }
+
+    /**
+     * Adds an already completed child of the innermost open span.
+     */
+    Span addSpan(String name, Span.Kind kind, long durationNanos) {
+        long end = System.nanoTime();
+        Span span = new Span(newSpanId(), open.peek().getSpanId(), name, kind, end - durationNanos);
+        span.setEndNanos(end);
+        finished.add(span);
+        return span;
+    }
+
+    void end() {
+        while (!open.isEmpty()) {
+            endSpan(open.peek());
+        }
+    }
+
+    /**
+     * Server-Timing header value: the time spent per span name so far, in order of first start,
+     * followed by the total. Repeated spans such as several MongoDB finds are summed.
+     */
+    String serverTiming() {
+        List<Span> spans = new ArrayList<>(finished);
+        spans.remove(root);
+        spans.sort(Comparator.comparingLong(Span::getStartNanos));
+        Map<String, Long> nanosByName = new LinkedHashMap<>();
+        for (Span span : spans) {
+            nanosByName.merge(span.getName(), span.getDurationNanos(), Long::sum);
+        }
+        StringBuilder header = new StringBuilder();
+        nanosByName.forEach((name, nanos) -> header.append(name).append(";dur=").append(millis(nanos)).append(", "));
+        return header.append("total;dur=").append(millis(System.nanoTime() - nanoTimeAtStart)).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+
+    static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return String.format("%016x%016x", random.nextLong(), random.nextLong());
+    }
+
+    private static String newSpanId() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.coffeeshop.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One timed operation of a request trace, such as a service call or a MongoDB command.
+ * Times are {@link System#nanoTime()} readings; {@link RequestTrace#epochNanos} converts them
+ * to wall-clock time for export.
+ */
+public class Span {
+
+    /** OpenTelemetry span kinds, with their OTLP numbers. */
+    public enum Kind {
+        INTERNAL(1), SERVER(2), CLIENT(3);
+
+        private final int otlpValue;
+
+        Kind(int otlpValue) {
+            this.otlpValue = otlpValue;
+        }
+
+        public int getOtlpValue() {
+            return otlpValue;
+        }
+    }
+
+    private final String spanId;
+    private final String parentSpanId;
+    private final Kind kind;
+    private final long startNanos;
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+    private String name;
+    private long endNanos;
+    private boolean error;
+
+    Span(String spanId, String parentSpanId, String name, Kind kind, long startNanos) {
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        this.startNanos = startNanos;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * Id of the enclosing span, or null for the root of a trace that did not arrive with a
+     * traceparent header.
+     */
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getEndNanos() {
+        return endNanos;
+    }
+
+    void setEndNanos(long endNanos) {
+        this.endNanos = endNanos;
+    }
+
+    public long getDurationNanos() {
+        return endNanos - startNanos;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    public void setAttribute(String key, String value) {
+        attributes.put(key, value);
+    }
+
+    public boolean isError() {
+        return error;
+    }
+
+    public void setError(boolean error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.coffeeshop.tracing;
+
+/**
+ * Receives every finished request trace that passes the tracing.export-min-duration filter.
+ * Called on the request thread after the response, so implementations must be quick.
+ */
+public interface SpanExporter {
+
+    void export(RequestTrace trace);
+}
@@ -0,0 +1,105 @@
+package com.example.coffeeshop.tracing;
+
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Records spans into the trace of the request being handled on the current thread.
+ * {@link TracingFilter} opens and closes the trace; everywhere else, spans are started with
+ * {@link #startSpan} and are no-ops when no trace is active (tracing disabled, background work,
+ * threads of the reactive driver).
+ */
+@Component
+public class Tracer {
+
+    // W3C trace context: version-traceid-parentid-flags
+    private static final Pattern TRACEPARENT = Pattern.compile("^00-([0-9a-f]{32})-([0-9a-f]{16})-[0-9a-f]{2}$");
+
+    private static final Scope NOOP = () -> { };
+
+    private final ThreadLocal<RequestTrace> current = new ThreadLocal<>();
+
+    /**
+     * Starts a trace on this thread. A valid traceparent header continues the caller's trace.
+     */
+    public RequestTrace startTrace(String name, String traceparent) {
+        String traceId = null;
+        String parentSpanId = null;
+        if (traceparent != null) {
+            Matcher matcher = TRACEPARENT.matcher(traceparent.trim());
+            if (matcher.matches()) {
+                traceId = matcher.group(1);
+                parentSpanId = matcher.group(2);
+            }
+        }
+        RequestTrace trace = new RequestTrace(traceId != null ? traceId : RequestTrace.newTraceId(), parentSpanId, name);
+        current.set(trace);
+        return trace;
+    }
+
+    /**
+     * Ends every span still open and detaches the trace from this thread.
+     */
+    public RequestTrace endTrace() {
+        RequestTrace trace = current.get();
+        current.remove();
+        if (trace != null) {
+            trace.end();
+        }
+        return trace;
+    }
+
+    /**
+     * Detaches the trace from this thread without ending it, for a request whose response is
+     * completed on another thread; {@link TracingFilter} ends it when the request completes.
+     */
+    public RequestTrace detachTrace() {
+        RequestTrace trace = current.get();
+        current.remove();
+        return trace;
+    }
+
+    public boolean isActive() {
+        return current.get() != null;
+    }
+
+    /**
+     * Starts a child of the innermost open span; close the returned scope to end it.
+     */
+    public Scope startSpan(String name) {
+        RequestTrace trace = current.get();
+        if (trace == null) {
+            return NOOP;
+        }
+        Span span = trace.startSpan(name, Span.Kind.INTERNAL);
+        return () -> trace.endSpan(span);
+    }
+
+    /**
+     * Records a client call that has just completed, e.g. a MongoDB command, measured by the caller.
+     * Returns the span for adding attributes, or null when no trace is active.
+     */
+    public Span recordClientSpan(String name, long durationNanos) {
+        RequestTrace trace = current.get();
+        return trace == null ? null : trace.addSpan(name, Span.Kind.CLIENT, durationNanos);
+    }
+
+    /**
+     * Server-Timing header value for the current trace, or null when no trace is active.
+     */
+    public String serverTiming() {
+        RequestTrace trace = current.get();
+        return trace == null ? null : trace.serverTiming();
+    }
+
+    /**
+     * An open span. Closing it twice or closing a no-op scope does nothing harmful.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
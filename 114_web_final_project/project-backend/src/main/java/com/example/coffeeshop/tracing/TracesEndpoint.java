@@ -0,0 +1,27 @@
+package com.example.coffeeshop.tracing;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+/**
+ * /actuator/traces: the traces kept by the in-memory exporter as OTLP/JSON, newest first.
+ */
+@Endpoint(id = "traces")
+public class TracesEndpoint {
+
+    private final InMemorySpanExporter exporter;
+    private final String serviceName;
+
+    public TracesEndpoint(InMemorySpanExporter exporter, String serviceName) {
+        this.exporter = exporter;
+        this.serviceName = serviceName;
+    }
+
+    @ReadOperation
+    public List<ObjectNode> traces() {
+        return exporter.recent().stream().map(trace -> OtlpJson.encode(trace, serviceName)).toList();
+    }
+}
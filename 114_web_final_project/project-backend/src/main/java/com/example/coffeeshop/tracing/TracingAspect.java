@@ -0,0 +1,31 @@
+package com.example.coffeeshop.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Records a span, named Class.method, for every public method of a {@code @Service} bean
+ * called during a traced request.
+ */
+@Aspect
+public class TracingAspect {
+
+    private final Tracer tracer;
+
+    public TracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object traceServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!tracer.isActive()) {
+            return joinPoint.proceed();
+        }
+        String name = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        try (Tracer.Scope span = tracer.startSpan(name)) {
+            return joinPoint.proceed();
+        }
+    }
+}
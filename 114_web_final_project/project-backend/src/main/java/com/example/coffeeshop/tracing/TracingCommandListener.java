@@ -0,0 +1,73 @@
+package com.example.coffeeshop.tracing;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds a client span for every MongoDB command a traced request runs, named mongo.&lt;command&gt;.
+ * The synchronous driver reports a command on the thread that issued it, which is what ties
+ * the span to the request.
+ */
+public class TracingCommandListener implements CommandListener {
+
+    private final Tracer tracer;
+    // Target of each traced command in flight; only the start event carries it.
+    private final Map<Integer, Target> targets = new ConcurrentHashMap<>();
+
+    public TracingCommandListener(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (tracer.isActive()) {
+            BsonValue collection = event.getCommand().get(event.getCommandName());
+            targets.put(event.getRequestId(), new Target(event.getDatabaseName(),
+                    collection != null && collection.isString() ? collection.asString().getValue() : null));
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        record(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), false);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        record(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), true);
+    }
+
+    private void record(int requestId, String command, long nanos, boolean failed) {
+        Target target = targets.remove(requestId);
+        Span span = tracer.recordClientSpan("mongo." + command, nanos);
+        if (span == null) {
+            return;
+        }
+        span.setAttribute("db.system", "mongodb");
+        span.setAttribute("db.operation", command);
+        if (target != null) {
+            span.setAttribute("db.name", target.database);
+            if (target.collection != null) {
+                span.setAttribute("db.mongodb.collection", target.collection);
+            }
+        }
+        span.setError(failed);
+    }
+
+    private static final class Target {
+        private final String database;
+        private final String collection;
+
+        private Target(String database, String collection) {
+            this.database = database;
+            this.collection = collection;
+        }
+    }
+}
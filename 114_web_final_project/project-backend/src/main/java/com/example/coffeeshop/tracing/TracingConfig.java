@@ -0,0 +1,86 @@
+package com.example.coffeeshop.tracing;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Wires per-request tracing (tracing.enabled): the request filter, spans for services,
+ * MongoDB commands and JSON serialization, and the configured exporter (tracing.exporter).
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(value = "tracing.enabled", matchIfMissing = true)
+public class TracingConfig implements WebMvcConfigurer {
+
+    private final Tracer tracer;
+
+    public TracingConfig(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * Runs ahead of Spring Security, so authentication is part of the trace.
+     */
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(ObjectProvider<SpanExporter> exporters,
+            @Value("${tracing.export-min-duration:0ms}") Duration exportMinDuration) {
+        TracingFilter filter = new TracingFilter(tracer, exporters.orderedStream().toList(), exportMinDuration);
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public TracingAspect tracingAspect() {
+        return new TracingAspect(tracer);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer tracingCommandListener() {
+        return settings -> settings.addCommandListener(new TracingCommandListener(tracer));
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "tracing.exporter", havingValue = "memory", matchIfMissing = true)
+    public InMemorySpanExporter inMemorySpanExporter(@Value("${tracing.memory.capacity:200}") int capacity) {
+        return new InMemorySpanExporter(capacity);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "tracing.exporter", havingValue = "memory", matchIfMissing = true)
+    public TracesEndpoint tracesEndpoint(InMemorySpanExporter exporter,
+            @Value("${tracing.service-name:coffeeshop}") String serviceName) {
+        return new TracesEndpoint(exporter, serviceName);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "tracing.exporter", havingValue = "file")
+    public OtlpJsonFileSpanExporter otlpJsonFileSpanExporter(@Value("${tracing.file.path:traces.jsonl}") Path path,
+            @Value("${tracing.service-name:coffeeshop}") String serviceName) {
+        return new OtlpJsonFileSpanExporter(path, serviceName);
+    }
+
+    /**
+     * Swaps Spring's JSON converter for one that times serialization.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter jackson) {
+                converters.set(i, new TracingJacksonConverter(jackson.getObjectMapper(), tracer));
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.coffeeshop.tracing;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Traces every request, from before authentication until the response is complete.
+ * The Server-Timing header is normally set by {@link TracingJacksonConverter} just before the
+ * body is written; responses without a JSON body get it here if nothing has been sent yet.
+ * Asynchronous requests (CompletableFuture and Flux handlers, streamed bodies) keep their trace
+ * open until the servlet container reports completion, so the root span covers the whole
+ * request. Their Server-Timing header and child spans stop at the hand-off: the trace lives in a
+ * thread local, and the threads that finish the response do not record into it.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final Tracer tracer;
+    private final List<SpanExporter> exporters;
+    private final long exportMinNanos;
+
+    public TracingFilter(Tracer tracer, List<SpanExporter> exporters, Duration exportMinDuration) {
+        this.tracer = tracer;
+        this.exporters = exporters;
+        this.exportMinNanos = exportMinDuration.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        RequestTrace trace = tracer.startTrace(request.getMethod() + " " + request.getRequestURI(),
+                request.getHeader("traceparent"));
+        Span root = trace.getRoot();
+        root.setAttribute("http.method", request.getMethod());
+        root.setAttribute("http.target", request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!response.isCommitted() && !response.containsHeader(SERVER_TIMING_HEADER)) {
+                response.setHeader(SERVER_TIMING_HEADER, tracer.serverTiming());
+            }
+            if (request.isAsyncStarted()) {
+                tracer.detachTrace();
+                request.getAsyncContext().addListener(new CompletionListener(trace, request, response));
+            } else {
+                tracer.endTrace();
+                finish(trace, request, response);
+            }
+        }
+    }
+
+    private void finish(RequestTrace trace, HttpServletRequest request, HttpServletResponse response) {
+        Span root = trace.getRoot();
+        // Name the span after the route, so all requests for /api/cafes/{id} group together.
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (route != null) {
+            root.setName(request.getMethod() + " " + route);
+            root.setAttribute("http.route", route.toString());
+        }
+        root.setAttribute("http.status_code", Integer.toString(response.getStatus()));
+        root.setError(response.getStatus() >= 500);
+        if (root.getDurationNanos() >= exportMinNanos) {
+            for (SpanExporter exporter : exporters) {
+                exporter.export(trace);
+            }
+        }
+    }
+
+    // Ends the trace of an asynchronous request once the container has completed it. A timeout
+    // or error is followed by onComplete, so only that ends the trace.
+    private final class CompletionListener implements AsyncListener {
+        private final RequestTrace trace;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+
+        private CompletionListener(RequestTrace trace, HttpServletRequest request, HttpServletResponse response) {
+            this.trace = trace;
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            trace.end();
+            finish(trace, request, response);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Listeners are dropped when a dispatched request starts async processing again.
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.coffeeshop.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * JSON converter that serializes into a buffer inside a "serialize" span, then sends the
+ * Server-Timing header ahead of the body, so the header includes serialization time.
+ * Untraced responses are written directly as usual.
+ */
+public class TracingJacksonConverter extends MappingJackson2HttpMessageConverter {
+
+    private final Tracer tracer;
+
+    public TracingJacksonConverter(ObjectMapper objectMapper, Tracer tracer) {
+        super(objectMapper);
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (!tracer.isActive()) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+        try (Tracer.Scope span = tracer.startSpan("serialize")) {
+            super.writeInternal(object, type, new BufferedOutputMessage(outputMessage.getHeaders(), body));
+        }
+        outputMessage.getHeaders().set(TracingFilter.SERVER_TIMING_HEADER, tracer.serverTiming());
+        outputMessage.getHeaders().setContentLength(body.size());
+        body.writeTo(outputMessage.getBody());
+    }
+
+    private static final class BufferedOutputMessage implements HttpOutputMessage {
+        private final HttpHeaders headers;
+        private final OutputStream body;
+
+        private BufferedOutputMessage(HttpHeaders headers, OutputStream body) {
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.coffeeshop.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactIdSetTest {
+
+    @Test
+    void emptySetContainsNothing() {
+        CompactIdSet set = CompactIdSet.empty();
+
+        assertEquals(0, set.size());
+        assertFalse(set.contains(id(0, 0)));
+        assertSame(set, set.without(id(0, 0)));
+    }
+
+    @Test
+    void growsAndShrinksOneIdAtATime() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            ids.add(id(i * 7919L, i));
+        }
+        Collections.shuffle(ids, new Random(42));
+
+        CompactIdSet set = CompactIdSet.empty();
+        for (int i = 0; i < ids.size(); i++) {
+            set = set.with(ids.get(i));
+            assertEquals(i + 1, set.size());
+            for (int j = 0; j < ids.size(); j++) {
+                assertEquals(j <= i, set.contains(ids.get(j)), ids.get(j));
+            }
+        }
+
+        Collections.shuffle(ids, new Random(7));
+        for (int i = 0; i < ids.size(); i++) {
+            set = set.without(ids.get(i));
+            assertEquals(ids.size() - i - 1, set.size());
+            for (int j = 0; j < ids.size(); j++) {
+                assertEquals(j > i, set.contains(ids.get(j)), ids.get(j));
+            }
+        }
+    }
+
+    @Test
+    void insertsAndRemovesAtBothEnds() {
+        String first = id(0, 0);
+        String middle = id(0x7FFFFFFFFFFFFFFFL, 0xFFFFFFFF);
+        String last = id(-1L, -1);
+        CompactIdSet set = CompactIdSet.empty().with(middle);
+
+        set = set.with(last).with(first);
+        assertEquals(3, set.size());
+        assertTrue(set.contains(first) && set.contains(middle) && set.contains(last));
+
+        assertFalse(set.without(first).contains(first));
+        assertTrue(set.without(first).contains(middle));
+        assertFalse(set.without(last).contains(last));
+        assertTrue(set.without(last).contains(first));
+        assertEquals(0, set.without(first).without(middle).without(last).size());
+    }
+
+    @Test
+    void comparesBothHalvesOfTheId() {
+        // Same first 8 bytes, different last 4, and the other way round.
+        String a = id(5, 1);
+        String b = id(5, -1);
+        String c = id(6, 1);
+        CompactIdSet set = CompactIdSet.of(List.of(b, c, a));
+
+        assertEquals(3, set.size());
+        assertTrue(set.contains(a) && set.contains(b) && set.contains(c));
+        assertFalse(set.contains(id(5, 2)));
+        assertFalse(set.contains(id(6, -1)));
+        assertEquals(2, set.without(b).size());
+        assertTrue(set.without(b).contains(a));
+    }
+
+    @Test
+    void ignoresDuplicatesAndInvalidIds() {
+        String a = id(1, 1);
+        CompactIdSet set = CompactIdSet.of(List.of(a, "not-an-id", a.toUpperCase(), a));
+
+        assertEquals(1, set.size());
+        assertSame(set, set.with(a));
+        assertSame(set, set.with("not-an-id"));
+        assertSame(set, set.without("not-an-id"));
+        assertSame(set, set.without(id(2, 2)));
+        assertFalse(set.contains("not-an-id"));
+    }
+
+    private static String id(long high, int low) {
+        return String.format("%016x%08x", high, low);
+    }
+}
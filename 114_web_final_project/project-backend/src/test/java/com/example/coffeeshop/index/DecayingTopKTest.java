@@ -0,0 +1,91 @@
+package com.example.coffeeshop.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DecayingTopKTest {
+
+    private static final long HALF_LIFE = 1_000;
+
+    @Test
+    void ranksByDecayedScore() {
+        DecayingTopK topK = new DecayingTopK(3, HALF_LIFE, 0);
+        topK.add("a", 1, 0);
+        topK.add("b", 1, HALF_LIFE);
+        topK.add("a", 1, HALF_LIFE);
+
+        List<DecayingTopK.Ranked> top = topK.top(2 * HALF_LIFE);
+        assertEquals(List.of("a", "b"), ids(top));
+        assertEquals(0.75, top.get(0).getScore(), 1e-9);
+        assertEquals(0.5, top.get(1).getScore(), 1e-9);
+    }
+
+    @Test
+    void keepsOnlyCapacityHighest() {
+        DecayingTopK topK = new DecayingTopK(2, HALF_LIFE, 0);
+        topK.add("a", 1, 0);
+        topK.add("b", 3, 0);
+        topK.add("c", 2, 0);
+
+        assertEquals(List.of("b", "c"), ids(topK.top(0)));
+        // "a" lost its place but keeps its score, so later events add to it.
+        topK.add("a", 2.5, 0);
+        assertEquals(List.of("a", "b"), ids(topK.top(0)));
+    }
+
+    @Test
+    void keepsOrderAndScoresAcrossRebase() {
+        DecayingTopK topK = new DecayingTopK(3, HALF_LIFE, 0);
+        topK.add("stale", 1, 0);
+        topK.add("a", 2, 49 * HALF_LIFE);
+        topK.add("b", 1, 49 * HALF_LIFE);
+        List<DecayingTopK.Ranked> before = topK.top(51 * HALF_LIFE);
+        long version = topK.version();
+
+        // More than 50 half-lives past the landmark, so this event rebases first.
+        topK.add("c", 0.125, 51 * HALF_LIFE);
+
+        List<DecayingTopK.Ranked> after = topK.top(51 * HALF_LIFE);
+        assertEquals(List.of("a", "b", "c"), ids(after));
+        assertEquals(before.get(0).getScore(), after.get(0).getScore(), 1e-12);
+        assertEquals(before.get(1).getScore(), after.get(1).getScore(), 1e-12);
+        assertEquals(0.5, after.get(0).getScore(), 1e-12);
+        assertEquals(0.25, after.get(1).getScore(), 1e-12);
+        assertEquals(version + 1, topK.version());
+        // The id that decayed to nothing was dropped at the rebase.
+        assertEquals(3, topK.size());
+
+        // Events after the rebase are weighed against the same scale as the rebased scores.
+        topK.add("b", 0.5, 51 * HALF_LIFE);
+        topK.add("c", 1, 52 * HALF_LIFE);
+        List<DecayingTopK.Ranked> later = topK.top(52 * HALF_LIFE);
+        assertEquals(List.of("c", "b", "a"), ids(later));
+        assertEquals(1.0625, later.get(0).getScore(), 1e-12);
+        assertEquals(0.375, later.get(1).getScore(), 1e-12);
+        assertEquals(0.25, later.get(2).getScore(), 1e-12);
+    }
+
+    @Test
+    void ignoresNonPositiveWeights() {
+        DecayingTopK topK = new DecayingTopK(3, HALF_LIFE, 0);
+        topK.add("a", 0, 0);
+        topK.add("b", -1, 0);
+
+        assertEquals(0, topK.size());
+        assertEquals(0, topK.version());
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new DecayingTopK(0, HALF_LIFE, 0));
+        assertThrows(IllegalArgumentException.class, () -> new DecayingTopK(3, 0, 0));
+    }
+
+    private static List<String> ids(List<DecayingTopK.Ranked> ranked) {
+        return ranked.stream().map(DecayingTopK.Ranked::getId).toList();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.coffeeshop.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TagBitmapIndexTest {
+
+    private static final int CAFES = 20;
+
+    // Cafes with an even number have wifi, those divisible by three are quiet. They are added
+    // in reverse, so ordinal order is the opposite of id order.
+    private static TagBitmapIndex index() {
+        TagBitmapIndex index = new TagBitmapIndex();
+        for (int i = CAFES - 1; i >= 0; i--) {
+            List<String> tags = new ArrayList<>();
+            tags.add("coffee");
+            if (i % 2 == 0) {
+                tags.add("wifi");
+            }
+            if (i % 3 == 0) {
+                tags.add("quiet");
+            }
+            index.put(id(i), tags);
+        }
+        return index;
+    }
+
+    @Test
+    void pagesThroughAllTagsWithCursor() {
+        // Few matches: collected and sorted.
+        assertEquals(ids(0, 6, 12, 18), readAll(index(), List.of("wifi", "quiet"), true, 3));
+    }
+
+    @Test
+    void pagesThroughAnyTagWithCursor() {
+        // Many matches: found by walking the sorted ids.
+        assertEquals(ids(0, 2, 3, 4, 6, 8, 9, 10, 12, 14, 15, 16, 18),
+                readAll(index(), List.of("wifi", "quiet"), false, 3));
+    }
+
+    @Test
+    void pagesAgreeWhateverThePageSize() {
+        TagBitmapIndex index = index();
+        for (boolean matchAll : new boolean[] {true, false}) {
+            List<String> expected = readAll(index, List.of("wifi", "quiet"), matchAll, CAFES);
+            for (int limit = 1; limit <= CAFES; limit++) {
+                assertEquals(expected, readAll(index, List.of("wifi", "quiet"), matchAll, limit));
+            }
+        }
+    }
+
+    @Test
+    void pageStartsAfterCursorEvenIfCursorIsGone() {
+        TagBitmapIndex index = index();
+        index.remove(id(6));
+
+        assertEquals(ids(12, 18), index.page(List.of("wifi", "quiet"), true, id(6), 10));
+        assertEquals(ids(8, 9), index.page(List.of("wifi", "quiet"), false, id(6), 2));
+    }
+
+    @Test
+    void reflectsUpdatedAndReusedIds() {
+        TagBitmapIndex index = index();
+        index.put(id(0), List.of("coffee"));
+        index.remove(id(6));
+        // Takes the ordinal freed by the removal, but still pages in id order.
+        index.put(id(20), List.of("coffee", "wifi", "quiet"));
+
+        assertEquals(ids(12, 18, 20), readAll(index, List.of("wifi", "quiet"), true, 2));
+        assertEquals(CAFES, index.size());
+    }
+
+    @Test
+    void unknownTagEmptiesAllButNotAny() {
+        TagBitmapIndex index = index();
+
+        assertTrue(index.page(List.of("wifi", "terrace"), true, null, 10).isEmpty());
+        assertEquals(ids(0, 2, 4), index.page(List.of("terrace", "wifi"), false, null, 3));
+        assertTrue(index.page(List.of(), false, null, 10).isEmpty());
+    }
+
+    @Test
+    void matchingReturnsNullAboveLimit() {
+        TagBitmapIndex index = index();
+
+        assertEquals(Set.copyOf(ids(0, 6, 12, 18)),
+                Set.copyOf(index.matching(List.of("wifi", "quiet"), true, 4)));
+        assertNull(index.matching(List.of("wifi", "quiet"), true, 3));
+    }
+
+    private static List<String> readAll(TagBitmapIndex index, List<String> tags, boolean matchAll, int limit) {
+        List<String> all = new ArrayList<>();
+        String cursor = null;
+        while (true) {
+            List<String> page = index.page(tags, matchAll, cursor, limit);
+            assertTrue(page.size() <= limit);
+            all.addAll(page);
+            if (page.size() < limit) {
+                return all;
+            }
+            cursor = page.get(page.size() - 1);
+        }
+    }
+
+    private static List<String> ids(int... numbers) {
+        List<String> ids = new ArrayList<>();
+        for (int number : numbers) {
+            ids.add(id(number));
+        }
+        return ids;
+    }
+
+    private static String id(int number) {
+        return String.format("cafe-%02d", number);
+    }
+}
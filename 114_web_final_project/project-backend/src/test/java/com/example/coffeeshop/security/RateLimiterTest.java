@@ -0,0 +1,97 @@
+package com.example.coffeeshop.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    // One request per second with bursts of three.
+    private static final long INTERVAL = SECOND;
+    private static final long TOLERANCE = 2 * SECOND;
+
+    private final RateLimiter limiter = new RateLimiter(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+    @Test
+    void allowsBurstThenReportsWaitUntilNextToken() {
+        long start = 1_000 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("a", INTERVAL, TOLERANCE, start));
+        }
+        assertEquals(SECOND, limiter.tryAcquire("a", INTERVAL, TOLERANCE, start));
+        assertEquals(SECOND / 4, limiter.tryAcquire("a", INTERVAL, TOLERANCE, start + 3 * SECOND / 4));
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        long start = 1_000 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("a", INTERVAL, TOLERANCE, start);
+        }
+        assertEquals(0, limiter.tryAcquire("a", INTERVAL, TOLERANCE, start + SECOND));
+        assertEquals(SECOND, limiter.tryAcquire("a", INTERVAL, TOLERANCE, start + SECOND));
+
+        // Idle for longer than the refill time: a full burst again, but no more.
+        long later = start + 10 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("a", INTERVAL, TOLERANCE, later));
+        }
+        assertEquals(SECOND, limiter.tryAcquire("a", INTERVAL, TOLERANCE, later));
+    }
+
+    @Test
+    void keepsSeparateBucketsPerKey() {
+        long start = 1_000 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("a", INTERVAL, TOLERANCE, start);
+        }
+        assertEquals(0, limiter.tryAcquire("b", INTERVAL, TOLERANCE, start));
+    }
+
+    @Test
+    void answersTooManyRequestsWithRetryAfterInWholeSeconds() throws Exception {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setName("reviews");
+        policy.setPaths(List.of("/api/cafes/*/reviews"));
+        policy.setLimit(7);
+        policy.setPeriod(Duration.ofMinutes(1));
+        policy.setBurst(2);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPolicies(List.of(policy));
+        RateLimitFilter filter = new RateLimitFilter(properties, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 2; i++) {
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(reviewRequest(), response, chain);
+            assertEquals(200, response.getStatus());
+            assertNotNull(chain.getRequest());
+        }
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(reviewRequest(), response, chain);
+        assertEquals(429, response.getStatus());
+        assertNull(chain.getRequest());
+        // The burst used the next token ahead of time; it refills after 60/7 s, rounded up.
+        assertEquals("9", response.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    private static MockHttpServletRequest reviewRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/cafes/42/reviews");
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+}